@@ -1,6 +1,7 @@
 plugins {
     id("java-library")
     id("maven-publish")
+    alias(libs.plugins.jmh)
 }
 
 group = "net.lostluma"
@@ -16,6 +17,10 @@ repositories {
 
 dependencies {
     implementation(libs.annotations)
+
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.launcher)
 }
 
 java {
@@ -26,10 +31,42 @@ java {
     }
 }
 
+// Classes replacing their Java 8 counterparts on newer Java versions, packaged as a multi-release jar
+val java11: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+val java22: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    profilers = listOf("gc")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
 tasks.withType<Jar> {
     from("LICENSE")
 }
 
+tasks.named<Jar>("jar") {
+    into("META-INF/versions/11") {
+        from(java11.output)
+    }
+
+    into("META-INF/versions/22") {
+        from(java22.output)
+    }
+
+    manifest {
+        attributes("Multi-Release" to "true")
+    }
+}
+
 tasks.withType<AbstractArchiveTask> {
     isReproducibleFileOrder = true
     isPreserveFileTimestamps = false
@@ -43,6 +80,19 @@ tasks.withType<JavaCompile> {
     }
 }
 
+// Configured after the block above, which would otherwise override the compiler
+tasks.named<JavaCompile>(java11.compileJavaTaskName) {
+    javaCompiler = javaToolchains.compilerFor {
+        languageVersion = JavaLanguageVersion.of(11)
+    }
+}
+
+tasks.named<JavaCompile>(java22.compileJavaTaskName) {
+    javaCompiler = javaToolchains.compilerFor {
+        languageVersion = JavaLanguageVersion.of(22)
+    }
+}
+
 /**
  * Builds the bundled Jar.
  *
@@ -53,6 +103,18 @@ tasks.register<Jar>("buildBundled") {
 
     from(files("library/"))
     from(sourceSets.main.get().output)
+
+    into("META-INF/versions/11") {
+        from(java11.output)
+    }
+
+    into("META-INF/versions/22") {
+        from(java22.output)
+    }
+
+    manifest {
+        attributes("Multi-Release" to "true")
+    }
 }
 
 publishing {
@@ -0,0 +1,156 @@
+package net.lostluma.battery.benchmark;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.Manager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accessor and update cost of a single battery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatteryBenchmark {
+    private static final int REPEATED_UPDATES = 100;
+
+    private FakePowerSupply supply;
+    private Manager manager;
+    private Battery battery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.supply = FakePowerSupply.create(1);
+        this.manager = Manager.createSysfs(this.supply.root());
+        this.battery = this.manager.batteries().iterator().next();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.manager.close();
+        this.supply.close();
+    }
+
+    @Benchmark
+    public void update() throws IOException {
+        this.battery.update();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPEATED_UPDATES)
+    public void repeatedUpdate() throws IOException {
+        for (int i = 0; i < REPEATED_UPDATES; i++) {
+            this.battery.update();
+        }
+    }
+
+    @Benchmark
+    public float stateOfCharge() {
+        return this.battery.stateOfCharge();
+    }
+
+    @Benchmark
+    public float energy() {
+        return this.battery.energy();
+    }
+
+    @Benchmark
+    public float energyFull() {
+        return this.battery.energyFull();
+    }
+
+    @Benchmark
+    public float energyFullDesign() {
+        return this.battery.energyFullDesign();
+    }
+
+    @Benchmark
+    public float energyRate() {
+        return this.battery.energyRate();
+    }
+
+    @Benchmark
+    public float voltage() {
+        return this.battery.voltage();
+    }
+
+    @Benchmark
+    public float stateOfHealth() {
+        return this.battery.stateOfHealth();
+    }
+
+    @Benchmark
+    public net.lostluma.battery.api.State state() {
+        return this.battery.state();
+    }
+
+    @Benchmark
+    public Object technology() {
+        return this.battery.technology();
+    }
+
+    @Benchmark
+    public Optional<Float> temperature() {
+        return this.battery.temperature();
+    }
+
+    @Benchmark
+    public OptionalLong cycleCount() {
+        return this.battery.cycleCount();
+    }
+
+    @Benchmark
+    public Optional<String> vendor() {
+        return this.battery.vendor();
+    }
+
+    @Benchmark
+    public Optional<String> model() {
+        return this.battery.model();
+    }
+
+    @Benchmark
+    public Optional<String> serialNumber() {
+        return this.battery.serialNumber();
+    }
+
+    @Benchmark
+    public Optional<Duration> timeToFull() {
+        return this.battery.timeToFull();
+    }
+
+    @Benchmark
+    public Optional<Duration> timeToEmpty() {
+        return this.battery.timeToEmpty();
+    }
+
+    @Benchmark
+    public void snapshotPrimitives(Blackhole blackhole) {
+        // Allocation free alternative to the Optional accessors above
+        blackhole.consume(this.battery.snapshot().temperatureCelsiusOrNaN());
+        blackhole.consume(this.battery.snapshot().cycleCountOrMin());
+        blackhole.consume(this.battery.snapshot().timeToFullSeconds());
+        blackhole.consume(this.battery.snapshot().timeToEmptySeconds());
+    }
+}
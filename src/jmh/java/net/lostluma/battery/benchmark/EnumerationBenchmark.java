@@ -0,0 +1,71 @@
+package net.lostluma.battery.benchmark;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.RefreshResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enumeration and bulk refresh cost for a varying amount of batteries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumerationBenchmark {
+    @Param({"1", "4", "16"})
+    public int batteries;
+
+    private FakePowerSupply supply;
+    private Manager manager;
+    private Collection<Battery> known;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.supply = FakePowerSupply.create(this.batteries);
+        this.manager = Manager.createSysfs(this.supply.root());
+        this.known = this.manager.batteries();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.manager.close();
+        this.supply.close();
+    }
+
+    @Benchmark
+    public Collection<Battery> enumerate() throws IOException {
+        // Batteries are known already, this measures the incremental path
+        return this.manager.batteries();
+    }
+
+    @Benchmark
+    public Collection<Battery> enumerateFresh() throws IOException {
+        try (Manager manager = Manager.createSysfs(this.supply.root())) {
+            return manager.batteries();
+        }
+    }
+
+    @Benchmark
+    public RefreshResult refreshAll() throws IOException {
+        return this.manager.refreshAll(this.known);
+    }
+}
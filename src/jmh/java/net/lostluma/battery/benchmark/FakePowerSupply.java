@@ -0,0 +1,76 @@
+package net.lostluma.battery.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Generates a fixed sysfs power supply tree, so benchmarks behave the same on machines without a battery.
+ */
+final class FakePowerSupply implements AutoCloseable {
+    private final Path root;
+
+    private FakePowerSupply(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * @param batteries amount of battery directories to create, next to a single mains supply.
+     */
+    static FakePowerSupply create(int batteries) throws IOException {
+        Path root = Files.createTempDirectory("battery-bench");
+
+        write(root.resolve("AC"), "type", "Mains");
+
+        for (int index = 0; index < batteries; index++) {
+            Path dir = root.resolve("BAT" + index);
+
+            write(dir, "type", "Battery");
+            write(dir, "status", index % 2 == 0 ? "Discharging" : "Charging");
+            write(dir, "technology", "Li-ion");
+            write(dir, "manufacturer", "ACME");
+            write(dir, "model_name", "Bench " + index);
+            write(dir, "serial_number", Integer.toString(1000 + index));
+            write(dir, "capacity", "57");
+            write(dir, "energy_now", "30000000");
+            write(dir, "energy_full", "52000000");
+            write(dir, "energy_full_design", "57000000");
+            write(dir, "power_now", "8000000");
+            write(dir, "voltage_now", "12100000");
+            write(dir, "cycle_count", "120");
+            write(dir, "temp", "315");
+        }
+
+        return new FakePowerSupply(root);
+    }
+
+    Path root() {
+        return this.root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.walkFileTree(this.root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void write(Path dir, String name, String value) throws IOException {
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(name), (value + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
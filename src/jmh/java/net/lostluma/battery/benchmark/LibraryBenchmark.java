@@ -0,0 +1,109 @@
+package net.lostluma.battery.benchmark;
+
+import net.lostluma.battery.impl.util.LoadPhases;
+import net.lostluma.battery.impl.util.NativeUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Installation and loading of the native library.
+ * <p>
+ * Downloads are disabled, so the library must be bundled on the classpath (see the {@code buildBundled} task).
+ * Cold runs use a fresh cache directory, loading can only happen once per JVM so each cold load gets its own fork.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LibraryBenchmark {
+    @State(Scope.Benchmark)
+    public static class Cache {
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            this.dir = Files.createTempDirectory("battery-cache");
+
+            NativeUtil.setCacheDir(this.dir);
+            NativeUtil.setAllowDownloads(false);
+        }
+
+        @Setup(Level.Invocation)
+        public void clear() throws IOException {
+            File[] files = this.dir.toFile().listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    Files.delete(file.toPath());
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmCache {
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            NativeUtil.setCacheDir(Files.createTempDirectory("battery-cache"));
+            NativeUtil.setAllowDownloads(false);
+
+            NativeUtil.install(new LoadPhases());
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    @Fork(1)
+    public Path installCold(Cache cache) throws Exception {
+        return NativeUtil.install(new LoadPhases());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public Path installWarm(WarmCache cache) throws Exception {
+        return NativeUtil.install(new LoadPhases());
+    }
+
+    @Benchmark
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public LoadPhases loadCold(Cache cache) {
+        LoadPhases phases = new LoadPhases();
+
+        NativeUtil.load(phases);
+        return phases;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public LoadPhases loadWarm(WarmCache cache) {
+        // Library is loaded by the first call, every later one only checks that
+        LoadPhases phases = new LoadPhases();
+
+        NativeUtil.load(phases);
+        return phases;
+    }
+}
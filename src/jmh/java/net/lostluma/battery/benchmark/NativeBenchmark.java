@@ -0,0 +1,116 @@
+package net.lostluma.battery.benchmark;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.PowerSummary;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.impl.util.NativeUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JNI backend against the machine's real batteries.
+ * <p>
+ * Downloads are disabled, so the library must be bundled on the classpath (see the {@code buildBundled} task),
+ * or a locally built library must be passed using {@code -Dbattery.library=<path>}.
+ * Benchmarks of a single battery fail during setup on machines without any battery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeBenchmark {
+    private Manager manager;
+    private Collection<Battery> known;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        NativeUtil.setCacheDir(Files.createTempDirectory("battery-cache"));
+        NativeUtil.setAllowDownloads(false);
+
+        String library = System.getProperty("battery.library");
+
+        if (library != null) {
+            NativeUtil.setLibraryPath(Paths.get(library));
+        }
+
+        this.manager = Manager.create();
+        this.known = this.manager.batteries();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.manager.close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class First {
+        Battery battery;
+
+        @Setup(Level.Trial)
+        public void setUp(NativeBenchmark benchmark) {
+            if (benchmark.known.isEmpty()) {
+                throw new IllegalStateException("No battery to benchmark.");
+            }
+
+            this.battery = benchmark.known.iterator().next();
+        }
+    }
+
+    @Benchmark
+    public Manager createWarm() throws IOException {
+        // The library is loaded already, this measures creating and freeing the native manager
+        try (Manager manager = Manager.create()) {
+            return manager;
+        }
+    }
+
+    @Benchmark
+    public Collection<Battery> enumerate() throws IOException {
+        // Batteries are known already, this measures the incremental path
+        return this.manager.batteries();
+    }
+
+    @Benchmark
+    public Collection<Battery> enumerateFresh() throws IOException {
+        try (Manager manager = Manager.create()) {
+            return manager.batteries();
+        }
+    }
+
+    @Benchmark
+    public RefreshResult refreshAll() throws IOException {
+        return this.manager.refreshAll(this.known);
+    }
+
+    @Benchmark
+    public PowerSummary aggregate() throws IOException {
+        return this.manager.aggregate();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BatterySnapshot update(First first) throws IOException {
+        first.battery.update();
+        return first.battery.snapshot();
+    }
+}
@@ -6,6 +6,9 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Represents battery information at a point in time.
@@ -13,8 +16,15 @@ import java.util.OptionalLong;
  * Subsequent calls to the same method will return the same information.
  * You must instead use the {@link Battery#update()} method to update information held in the battery.
  * <p>
+ * Two batteries are equal if they represent the same physical battery, which is identified by its serial number,
+ * or by its vendor and model if it has no serial number. Batteries which can't be told apart this way are additionally
+ * identified by their position in the system, and are returned as a new instance by every enumeration instead.
+ * <p>
  * The documentation here is derived from the documentation for the underlying library, provided for convenience.
  * You may read it <a href="https://docs.rs/starship-battery/0.8.3/starship_battery/index.html">on docs.rs</a> for more details.
+ * <p>
+ * Methods added after the initial release have default implementations based on the original methods,
+ * so existing implementations of this interface keep working.
  */
 public interface Battery {
     /**
@@ -123,11 +133,122 @@ public interface Battery {
      */
     @NotNull Optional<Duration> timeToEmpty();
 
+    /**
+     * Returns the information captured by the most recent update.
+     * <p>
+     * The individual accessors of this battery may return values of different updates
+     * when another thread updates the battery in the meantime. Use a snapshot to read a consistent set of values.
+     * <p>
+     * Calling this method does not allocate, the same snapshot is returned until the battery is updated again.
+     * <p>
+     * The default implementation instead assembles a new snapshot from the individual accessors on every call,
+     * which has a sequence number of zero and is not guaranteed to be consistent.
+     *
+     * @return the battery's current snapshot.
+     */
+    default @NotNull BatterySnapshot snapshot() {
+        return new BatterySnapshot(
+            0,
+            System.nanoTime(),
+            this.stateOfCharge(),
+            this.energy(),
+            this.energyFull(),
+            this.energyFullDesign(),
+            this.energyRate(),
+            this.voltage(),
+            this.stateOfHealth(),
+            this.state(),
+            this.technology(),
+            this.temperature().orElse(Float.NaN),
+            this.cycleCount().orElse(Long.MIN_VALUE),
+            this.timeToFull().map(duration -> (float) duration.getSeconds()).orElse(Float.NaN),
+            this.timeToEmpty().map(duration -> (float) duration.getSeconds()).orElse(Float.NaN)
+        );
+    }
+
+    /**
+     * Register a listener which receives every new snapshot of this battery.
+     * <p>
+     * Listeners are called on the updating thread in the order snapshots are taken.
+     * They should return quickly, as further updates of this battery wait for them.
+     * <p>
+     * Exceptions thrown by a listener are passed to the updating thread's uncaught exception handler,
+     * the update itself still succeeds and the remaining listeners are notified regardless.
+     *
+     * @param listener the listener to add.
+     * @throws UnsupportedOperationException the implementation does not support listeners, which is the default.
+     */
+    default void addUpdateListener(@NotNull Consumer<BatterySnapshot> listener) {
+        throw new UnsupportedOperationException("Battery does not support update listeners.");
+    }
+
+    /**
+     * @param listener the listener to remove.
+     */
+    default void removeUpdateListener(@NotNull Consumer<BatterySnapshot> listener) {
+        // Nothing can have been added
+    }
+
+    /**
+     * Whether the battery was still present when its manager last looked up batteries.
+     * <p>
+     * Once a battery is no longer present it can not be updated anymore. Should it be reconnected,
+     * the manager returns a new instance for it, which is equal to this one.
+     * <p>
+     * The default implementation always returns {@code true}.
+     *
+     * @return whether the battery is present.
+     */
+    default boolean isPresent() {
+        return true;
+    }
+
     /**
      * Refresh battery information in-place.
      *
-     * @throws IOException battery information couldn't be refreshed.
-     * @throws RuntimeException the associated manager is not active.
+     * @throws IOException battery information couldn't be refreshed, or the battery is no longer present.
+     * @throws IllegalStateException the associated manager is not active.
      */
     void update() throws IOException, RuntimeException;
+
+    /**
+     * Refresh battery information in-place, unless it is already recent enough.
+     * <p>
+     * If the current information is no older than the maximum age, this returns immediately.
+     * Otherwise, concurrent callers share a single refresh: Threads which had to wait for
+     * another thread's refresh use its result instead of refreshing again.
+     * <p>
+     * The default implementation always refreshes.
+     *
+     * @param maxAge the oldest information which is still acceptable.
+     * @throws IOException battery information couldn't be refreshed, or the battery is no longer present.
+     * @throws IllegalStateException the associated manager is not active.
+     * @see net.lostluma.battery.api.metrics.Instrumentation#cacheStatistics()
+     */
+    default void update(@NotNull Duration maxAge) throws IOException, RuntimeException {
+        this.update();
+    }
+
+    /**
+     * Asynchronously refresh battery information in-place, see {@link #update()}.
+     * <p>
+     * The refresh runs on a small pool of platform threads owned by the battery's manager, so waiting for the result
+     * from a virtual thread does not pin its carrier. Calls made while a refresh is still queued share its result.
+     * If too many calls are queued already or the manager is closed, the future fails with a {@link java.util.concurrent.RejectedExecutionException}.
+     * <p>
+     * The default implementation refreshes on the common {@link java.util.concurrent.ForkJoinPool} instead.
+     *
+     * @return a future completed with the refreshed information.
+     */
+    default @NotNull CompletableFuture<BatterySnapshot> updateAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                this.update();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+
+            return this.snapshot();
+        });
+    }
 }
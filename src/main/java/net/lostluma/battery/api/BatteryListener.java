@@ -0,0 +1,49 @@
+package net.lostluma.battery.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Receives battery changes detected by a {@link BatteryMonitor}.
+ * <p>
+ * Listeners are called on the monitor's scheduler thread, and should return quickly.
+ * Exceptions thrown by a listener are passed to the thread's uncaught exception handler,
+ * and neither stop polling nor keep other listeners from being notified.
+ */
+@FunctionalInterface
+public interface BatteryListener {
+    /**
+     * Called when a battery changed beyond the monitor's threshold since it was last reported.
+     *
+     * @param battery the battery which changed.
+     * @param previous the snapshot which was last reported for the battery.
+     * @param current the battery's new snapshot.
+     */
+    void onChange(@NotNull Battery battery, @NotNull BatterySnapshot previous, @NotNull BatterySnapshot current);
+
+    /**
+     * Called when a battery could not be updated.
+     * <p>
+     * The monitor keeps polling the battery at its maximum interval, unless the battery was removed.
+     * If the manager can no longer be used, e.g. because it was closed, the error wraps the cause
+     * and the monitor stops polling the battery.
+     *
+     * @param battery the battery which failed to update.
+     * @param error the reason why.
+     */
+    default void onError(@NotNull Battery battery, @NotNull IOException error) {
+    }
+
+    /**
+     * Called when the manager's batteries could not be looked up.
+     * <p>
+     * The monitor keeps polling known batteries, and looks them up again at its maximum interval.
+     * If the manager can no longer be used, e.g. because it was closed, the error wraps the cause
+     * and the monitor stops looking up batteries.
+     *
+     * @param error the reason why.
+     */
+    default void onEnumerationError(@NotNull IOException error) {
+    }
+}
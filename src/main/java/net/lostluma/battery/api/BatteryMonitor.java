@@ -0,0 +1,73 @@
+package net.lostluma.battery.api;
+
+import net.lostluma.battery.impl.BatteryMonitorImpl;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Polls batteries in the background, and notifies listeners about significant changes.
+ * <p>
+ * All batteries of a monitor share a single scheduler thread. The polling interval of each battery adapts to its state:
+ * Batteries which are full or otherwise idle are polled at the maximum interval, while batteries which are charging
+ * or discharging are polled more often the faster their charge changes.
+ */
+public interface BatteryMonitor extends AutoCloseable {
+    /**
+     * Creates a monitor which polls between every second and every minute, and reports changes of one percent.
+     *
+     * @param manager the manager to get batteries from.
+     * @return the new monitor.
+     */
+    static @NotNull BatteryMonitor create(@NotNull Manager manager) {
+        return create(manager, Duration.of(1, ChronoUnit.SECONDS), Duration.of(1, ChronoUnit.MINUTES), 0.01f);
+    }
+
+    /**
+     * Creates a new monitor.
+     * <p>
+     * A change is reported when the battery's state, technology, or cycle count changes, or when any other value
+     * changes by more than the threshold relative to its previously reported value.
+     *
+     * @param manager the manager to get batteries from.
+     * @param minInterval the shortest time between two updates of a battery.
+     * @param maxInterval the longest time between two updates of a battery.
+     * @param threshold the relative change required to notify listeners, e.g. {@code 0.01} for one percent.
+     * @return the new monitor.
+     * @throws IllegalArgumentException the intervals or the threshold are invalid.
+     */
+    static @NotNull BatteryMonitor create(@NotNull Manager manager, @NotNull Duration minInterval, @NotNull Duration maxInterval, float threshold) {
+        return new BatteryMonitorImpl(manager, minInterval, maxInterval, threshold);
+    }
+
+    /**
+     * @param listener the listener to notify about changes.
+     */
+    void addListener(@NotNull BatteryListener listener);
+
+    /**
+     * @param listener the listener to no longer notify about changes.
+     */
+    void removeListener(@NotNull BatteryListener listener);
+
+    /**
+     * Look up the manager's batteries and start polling them.
+     * <p>
+     * Batteries are looked up again at the maximum interval, and whenever an update fails,
+     * so batteries which were added are polled as well and batteries which were removed are no longer polled.
+     *
+     * @throws IOException looking up the batteries failed.
+     * @throws IllegalStateException the monitor was already started or closed.
+     */
+    void start() throws IOException, IllegalStateException;
+
+    /**
+     * Stop polling batteries.
+     * <p>
+     * The underlying manager is not closed.
+     */
+    @Override
+    void close(); // Remove throws Exception from AutoCloseable
+}
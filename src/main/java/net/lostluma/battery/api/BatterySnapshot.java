@@ -0,0 +1,167 @@
+package net.lostluma.battery.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable battery information captured by a single update.
+ * <p>
+ * Unlike reading from a {@link Battery} directly, all values of a snapshot are guaranteed to stem from the same update,
+ * and a snapshot can be shared freely between threads. Optional values are represented by sentinel values instead of
+ * wrapper objects, so reading from a snapshot never allocates.
+ *
+ * @see Battery#snapshot()
+ */
+public final class BatterySnapshot {
+    private final long sequence;
+    private final long timestamp;
+
+    private final float stateOfCharge;
+    private final float energy;
+    private final float energyFull;
+    private final float energyFullDesign;
+    private final float energyRate;
+    private final float voltage;
+    private final float stateOfHealth;
+    private final State state;
+    private final Technology technology;
+    private final float temperature;
+    private final long cycleCount;
+    private final float timeToFull;
+    private final float timeToEmpty;
+
+    @ApiStatus.Internal
+    public BatterySnapshot(long sequence, long timestamp, float stateOfCharge, float energy, float energyFull, float energyFullDesign, float energyRate, float voltage, float stateOfHealth, State state, Technology technology, float temperature, long cycleCount, float timeToFull, float timeToEmpty) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+
+        this.stateOfCharge = stateOfCharge;
+        this.energy = energy;
+        this.energyFull = energyFull;
+        this.energyFullDesign = energyFullDesign;
+        this.energyRate = energyRate;
+        this.voltage = voltage;
+        this.stateOfHealth = stateOfHealth;
+        this.state = state;
+        this.technology = technology;
+        this.temperature = temperature;
+        this.cycleCount = cycleCount;
+        this.timeToFull = timeToFull;
+        this.timeToEmpty = timeToEmpty;
+    }
+
+    /**
+     * Number of the update which produced this snapshot.
+     * <p>
+     * Starts at one for the first update of a battery, and increases by one with every subsequent update.
+     *
+     * @return the snapshot's sequence number.
+     */
+    public long sequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Time at which the snapshot was taken, as given by {@link System#nanoTime()}.
+     * <p>
+     * This value is only meaningful when compared to other {@link System#nanoTime()} values of the same JVM.
+     *
+     * @return the snapshot's monotonic timestamp, in nanoseconds.
+     */
+    public long timestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * @return the battery's state of charge.
+     * @see Battery#stateOfCharge()
+     */
+    public float stateOfCharge() {
+        return this.stateOfCharge;
+    }
+
+    /**
+     * @return the amount of energy available in the battery, in watt-hours.
+     */
+    public float energy() {
+        return this.energy;
+    }
+
+    /**
+     * @return the amount of energy in the battery when it's considered full, in watt-hours.
+     */
+    public float energyFull() {
+        return this.energyFull;
+    }
+
+    /**
+     * @return the amount of energy the battery is designed to hold when it's considered full, in watt-hours.
+     */
+    public float energyFullDesign() {
+        return this.energyFullDesign;
+    }
+
+    /**
+     * @return the amount of energy being drained from the battery, in watts.
+     */
+    public float energyRate() {
+        return this.energyRate;
+    }
+
+    /**
+     * @return the battery's voltage, in volts.
+     */
+    public float voltage() {
+        return this.voltage;
+    }
+
+    /**
+     * @return the battery's state of health.
+     * @see Battery#stateOfHealth()
+     */
+    public float stateOfHealth() {
+        return this.stateOfHealth;
+    }
+
+    /**
+     * @return the battery's state.
+     */
+    public @NotNull State state() {
+        return this.state;
+    }
+
+    /**
+     * @return the battery's technology.
+     */
+    public @NotNull Technology technology() {
+        return this.technology;
+    }
+
+    /**
+     * @return the battery's temperature in Celsius, or {@link Float#NaN} if unavailable.
+     */
+    public float temperatureCelsiusOrNaN() {
+        return this.temperature;
+    }
+
+    /**
+     * @return the battery's cycle count, or {@link Long#MIN_VALUE} if unavailable.
+     */
+    public long cycleCountOrMin() {
+        return this.cycleCount;
+    }
+
+    /**
+     * @return seconds until the battery is full, or {@link Float#NaN} if it is not charging.
+     */
+    public float timeToFullSeconds() {
+        return this.timeToFull;
+    }
+
+    /**
+     * @return seconds until the battery is empty, or {@link Float#NaN} if it is not discharging.
+     */
+    public float timeToEmptySeconds() {
+        return this.timeToEmpty;
+    }
+}
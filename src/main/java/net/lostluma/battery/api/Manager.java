@@ -1,16 +1,32 @@
 package net.lostluma.battery.api;
 
 import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.api.simulation.Simulation;
+import net.lostluma.battery.api.spi.Backend;
+import net.lostluma.battery.impl.Aggregate;
 import net.lostluma.battery.impl.ManagerImpl;
+import net.lostluma.battery.impl.SharedManager;
+import net.lostluma.battery.impl.simulation.SimulatedManager;
+import net.lostluma.battery.impl.sysfs.SysfsManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The battery manager.
  * <p>
  * Allows fetching and refreshing battery information.
+ * <p>
+ * Methods added after the initial release have default implementations based on the original methods,
+ * so existing implementations of this interface keep working.
  */
 public interface Manager extends AutoCloseable {
     /**
@@ -24,18 +40,174 @@ public interface Manager extends AutoCloseable {
         return new ManagerImpl();
     }
 
+    /**
+     * Tries to create a view of the process-wide shared manager, reusing results which are at most one second old.
+     *
+     * @return the new view.
+     * @throws IOException creating the shared manager failed.
+     * @throws LibraryLoadError loading the native backend library failed.
+     * @see #shared(Duration)
+     */
+    static @NotNull Manager shared() throws IOException, LibraryLoadError {
+        return shared(Duration.ofSeconds(1));
+    }
+
+    /**
+     * Tries to create a view of the process-wide shared manager.
+     * <p>
+     * All views use the same native manager, which is created for the first view and closed once the last view is closed.
+     * Batteries are shared between views, and enumerations, refreshes, and summaries which are at most
+     * {@code maxAge} old are reused instead of querying the system again, even if another view requested them.
+     * This allows independent libraries in one process to avoid duplicate work.
+     *
+     * @param maxAge the maximum age of reused results, with zero only callers waiting on the same call share its result.
+     * @return the new view.
+     * @throws IOException creating the shared manager failed.
+     * @throws LibraryLoadError loading the native backend library failed.
+     * @throws IllegalArgumentException the maximum age is negative.
+     */
+    static @NotNull Manager shared(@NotNull Duration maxAge) throws IOException, LibraryLoadError {
+        return SharedManager.acquire(maxAge);
+    }
+
+    /**
+     * Tries to create a new manager which reads the Linux sysfs power supply class directly.
+     * <p>
+     * This does not require the native backend library, and therefore avoids installing and loading it.
+     * Only available on Linux.
+     *
+     * @return the new manager.
+     * @throws IOException the power supply class is not available.
+     */
+    static @NotNull Manager createSysfs() throws IOException {
+        return new SysfsManager(SysfsManager.DEFAULT_ROOT);
+    }
+
+    /**
+     * Tries to create a new manager which reads power supplies from a custom sysfs directory.
+     * <p>
+     * The directory must be laid out like {@code /sys/class/power_supply}, e.g. for testing against a fake directory tree.
+     *
+     * @param root the directory containing one subdirectory per power supply.
+     * @return the new manager.
+     * @throws IOException the directory does not exist.
+     */
+    static @NotNull Manager createSysfs(@NotNull Path root) throws IOException {
+        return new SysfsManager(root);
+    }
+
+    /**
+     * Creates a manager of simulated batteries, which behave according to the simulation's configuration.
+     * <p>
+     * Useful for testing and benchmarking consumers against many batteries, or on machines without any.
+     *
+     * @param simulation the configuration of the simulated fleet.
+     * @return the new manager.
+     */
+    static @NotNull Manager createSimulated(@NotNull Simulation simulation) {
+        return new SimulatedManager(simulation);
+    }
+
+    /**
+     * Tries to create a new manager using the backend with the given name.
+     *
+     * @param backend the name of the backend, see {@link Backend}.
+     * @return the new manager.
+     * @throws IOException creating the manager failed.
+     * @throws LibraryLoadError loading a native library required by the backend failed.
+     * @throws IllegalArgumentException no backend with this name is registered.
+     */
+    static @NotNull Manager create(@NotNull String backend) throws IOException, LibraryLoadError {
+        for (Backend candidate : ServiceLoader.load(Backend.class, Manager.class.getClassLoader())) {
+            if (candidate.name().equals(backend)) {
+                return candidate.create();
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown backend " + backend + ".");
+    }
+
     /**
      * Returns a collection of currently available batteries.
      * <p>
      * Note that ordering of batteries is not guaranteed, and may
      * change on subsequent calls due to the underlying OS implementation.
+     * <p>
+     * Batteries which were already returned by a previous call are returned as the same instance again,
+     * and keep their information until they are updated. Only batteries which can't be told apart from
+     * another battery are returned as a new instance every time, see {@link Battery}. Batteries which disappeared since the previous call
+     * are no longer {@link Battery#isPresent() present}.
      *
      * @return the system's current batteries.
      * @throws IOException looking up the batteries failed.
-     * @throws RuntimeException the manager is already closed.
+     * @throws IllegalStateException the manager is already closed.
      */
     @NotNull Collection<Battery> batteries() throws IOException, RuntimeException;
 
+    /**
+     * Asynchronously looks up the currently available batteries, see {@link #batteries()}.
+     * <p>
+     * The lookup runs on a small pool of platform threads owned by the manager, so waiting for the result
+     * from a virtual thread does not pin its carrier. Calls made while a lookup is still queued share its result.
+     * If too many calls are queued already or the manager is closed, the future fails with a {@link java.util.concurrent.RejectedExecutionException}.
+     * <p>
+     * The default implementation looks up batteries on the common {@link java.util.concurrent.ForkJoinPool} instead.
+     *
+     * @return a future completed with the system's current batteries.
+     */
+    default @NotNull CompletableFuture<Collection<Battery>> batteriesAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.batteries();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Refresh information of multiple batteries at once.
+     * <p>
+     * This is equivalent to calling {@link Battery#update()} on every battery,
+     * but only crosses into the native library a single time.
+     * A failure to refresh one battery does not prevent the others from being refreshed.
+     * <p>
+     * The default implementation calls {@link Battery#update()} on every battery in turn.
+     *
+     * @param batteries the batteries to refresh, which must have been returned by this manager.
+     * @return which batteries were refreshed successfully.
+     * @throws IOException the batteries could not be refreshed at all.
+     * @throws IllegalStateException the manager is already closed.
+     * @throws IllegalArgumentException a battery was not created by this manager.
+     */
+    default @NotNull RefreshResult refreshAll(@NotNull Collection<Battery> batteries) throws IOException, RuntimeException {
+        Map<Battery, IOException> failures = new LinkedHashMap<>();
+
+        for (Battery battery : batteries) {
+            try {
+                battery.update();
+            } catch (IOException e) {
+                failures.put(battery, e);
+            }
+        }
+
+        return new RefreshResult(batteries.size() - failures.size(), failures);
+    }
+
+    /**
+     * Combines information of all batteries currently present, for example for systems with multiple battery packs.
+     * <p>
+     * The native backend reads all batteries in a single call, without updating any {@link Battery} instances.
+     * Other backends, and the default implementation, enumerate and refresh all batteries, skipping those which fail to refresh.
+     *
+     * @return the combined information.
+     * @throws IOException reading the batteries failed.
+     * @throws IllegalStateException the manager is already closed.
+     */
+    default @NotNull PowerSummary aggregate() throws IOException, RuntimeException {
+        return Aggregate.of(this);
+    }
+
     /**
      * Close the manager.
      * <p>
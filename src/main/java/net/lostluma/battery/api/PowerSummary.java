@@ -0,0 +1,124 @@
+package net.lostluma.battery.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Combined information of all batteries in a system, see {@link Manager#aggregate()}.
+ * <p>
+ * If any battery is charging or discharging, the combined state is charging if the net energy rate flows into
+ * the batteries, and discharging if it flows out of them. If the rates cancel out, it is charging if any battery
+ * is charging, otherwise discharging. If no battery is charging or discharging, it is full or empty if all
+ * batteries are, and unknown otherwise.
+ */
+public final class PowerSummary {
+    private final int batteries;
+    private final float stateOfCharge;
+    private final float energy;
+    private final float energyFull;
+    private final float energyFullDesign;
+    private final float energyRate;
+    private final State state;
+    private final float timeToFull;
+    private final float timeToEmpty;
+
+    @ApiStatus.Internal
+    public PowerSummary(int batteries, float stateOfCharge, float energy, float energyFull, float energyFullDesign, float energyRate, State state, float timeToFull, float timeToEmpty) {
+        this.batteries = batteries;
+        this.stateOfCharge = stateOfCharge;
+        this.energy = energy;
+        this.energyFull = energyFull;
+        this.energyFullDesign = energyFullDesign;
+        this.energyRate = energyRate;
+        this.state = state;
+        this.timeToFull = timeToFull;
+        this.timeToEmpty = timeToEmpty;
+    }
+
+    /**
+     * @return the amount of batteries included.
+     */
+    public int batteries() {
+        return this.batteries;
+    }
+
+    /**
+     * Combined state of charge, weighted by the energy each battery can hold.
+     *
+     * @return total energy relative to total energy when full, in percent.
+     */
+    public float stateOfCharge() {
+        return this.stateOfCharge;
+    }
+
+    /**
+     * @return total energy currently stored, in watt-hours.
+     */
+    public float energy() {
+        return this.energy;
+    }
+
+    /**
+     * @return total energy stored when full, in watt-hours.
+     */
+    public float energyFull() {
+        return this.energyFull;
+    }
+
+    /**
+     * @return total energy stored when full as designed, in watt-hours.
+     */
+    public float energyFullDesign() {
+        return this.energyFullDesign;
+    }
+
+    /**
+     * Net power flowing into charging batteries or out of discharging batteries, in watts.
+     * <p>
+     * Batteries which charge and discharge at the same time offset each other,
+     * the direction of the net rate is given by the {@link #state() state}.
+     *
+     * @return the absolute net energy rate.
+     */
+    public float energyRate() {
+        return this.energyRate;
+    }
+
+    public @NotNull State state() {
+        return this.state;
+    }
+
+    /**
+     * @return seconds until all batteries are full at the net rate, or {@link Float#NaN} if not charging.
+     */
+    public float timeToFullSeconds() {
+        return this.timeToFull;
+    }
+
+    /**
+     * @return seconds until all batteries are empty at the net rate, or {@link Float#NaN} if not discharging.
+     */
+    public float timeToEmptySeconds() {
+        return this.timeToEmpty;
+    }
+
+    public @NotNull Optional<Duration> timeToFull() {
+        return toDuration(this.timeToFull);
+    }
+
+    public @NotNull Optional<Duration> timeToEmpty() {
+        return toDuration(this.timeToEmpty);
+    }
+
+    private static Optional<Duration> toDuration(float seconds) {
+        if (Float.isNaN(seconds)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(Duration.of((long) seconds, ChronoUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.lostluma.battery.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of refreshing multiple batteries at once.
+ *
+ * @see Manager#refreshAll(java.util.Collection)
+ */
+public final class RefreshResult {
+    private final int succeeded;
+    private final Map<Battery, IOException> failures;
+
+    @ApiStatus.Internal
+    public RefreshResult(int succeeded, Map<Battery, IOException> failures) {
+        this.succeeded = succeeded;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return the amount of batteries which were refreshed successfully.
+     */
+    public int succeeded() {
+        return this.succeeded;
+    }
+
+    /**
+     * @return the amount of batteries which could not be refreshed.
+     */
+    public int failed() {
+        return this.failures.size();
+    }
+
+    /**
+     * @return whether all batteries were refreshed successfully.
+     */
+    public boolean isSuccessful() {
+        return this.failures.isEmpty();
+    }
+
+    /**
+     * Batteries which could not be refreshed, and the reason why.
+     * <p>
+     * These batteries keep the information from their last successful update.
+     *
+     * @return the failed batteries mapped to their error.
+     */
+    public @NotNull Map<Battery, IOException> failures() {
+        return this.failures;
+    }
+}
@@ -0,0 +1,135 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Recent history of a battery's energy rate, state of charge, voltage, and temperature.
+ * <p>
+ * Each metric is kept in its own {@link MetricWindow}. Memory use is fixed when the history is created,
+ * at roughly {@code 4 * capacity * 28} bytes, regardless of how many snapshots are recorded.
+ */
+public final class BatteryHistory implements Consumer<BatterySnapshot> {
+    private final MetricWindow energyRate;
+    private final MetricWindow stateOfCharge;
+    private final MetricWindow voltage;
+    private final MetricWindow temperature;
+
+    private long sequence;
+    private Battery battery;
+
+    /**
+     * @param capacity the maximum amount of samples to retain per metric.
+     * @param maxAge the maximum age of retained samples relative to the newest sample.
+     * @param alpha the smoothing factor of the moving averages, between zero and one.
+     * @throws IllegalArgumentException the capacity, maximum age, or smoothing factor are invalid.
+     */
+    public BatteryHistory(int capacity, @NotNull Duration maxAge, float alpha) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Maximum age must be positive.");
+        }
+
+        if (!(alpha > 0.0f && alpha <= 1.0f)) {
+            throw new IllegalArgumentException("Smoothing factor must be greater than zero and at most one.");
+        }
+
+        long age = maxAge.getSeconds() >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : maxAge.toNanos();
+
+        this.energyRate = new MetricWindow(capacity, age, alpha);
+        this.stateOfCharge = new MetricWindow(capacity, age, alpha);
+        this.voltage = new MetricWindow(capacity, age, alpha);
+        this.temperature = new MetricWindow(capacity, age, alpha);
+    }
+
+    /**
+     * Creates a history which records every update of the battery, starting with its current snapshot.
+     *
+     * @param battery the battery to record.
+     * @param capacity the maximum amount of samples to retain per metric.
+     * @param maxAge the maximum age of retained samples relative to the newest sample.
+     * @param alpha the smoothing factor of the moving averages, between zero and one.
+     * @return the new history.
+     */
+    public static @NotNull BatteryHistory attach(@NotNull Battery battery, int capacity, @NotNull Duration maxAge, float alpha) {
+        BatteryHistory history = new BatteryHistory(capacity, maxAge, alpha);
+
+        history.battery = battery;
+
+        // Listen first, so no update is missed, the current snapshot is ignored if one arrived already
+        battery.addUpdateListener(history);
+        history.accept(battery.snapshot());
+
+        return history;
+    }
+
+    /**
+     * Stop recording updates of the battery this history was attached to.
+     */
+    public synchronized void detach() {
+        Battery battery = this.battery;
+
+        if (battery != null) {
+            battery.removeUpdateListener(this);
+
+            // Sequence numbers are only comparable between snapshots of the same battery
+            this.battery = null;
+            this.sequence = 0;
+        }
+    }
+
+    /**
+     * Record a snapshot. Snapshots which are not newer than the last recorded one are ignored.
+     *
+     * @param snapshot the snapshot to record.
+     */
+    @Override
+    public synchronized void accept(@NotNull BatterySnapshot snapshot) {
+        if (snapshot.sequence() <= this.sequence) {
+            return;
+        }
+
+        long timestamp = snapshot.timestamp();
+        this.sequence = snapshot.sequence();
+
+        this.energyRate.append(timestamp, snapshot.energyRate());
+        this.stateOfCharge.append(timestamp, snapshot.stateOfCharge());
+        this.voltage.append(timestamp, snapshot.voltage());
+        this.temperature.append(timestamp, snapshot.temperatureCelsiusOrNaN());
+    }
+
+    /**
+     * @return recent energy rates, in watts.
+     */
+    public @NotNull MetricWindow energyRate() {
+        return this.energyRate;
+    }
+
+    /**
+     * @return recent states of charge, in percent.
+     */
+    public @NotNull MetricWindow stateOfCharge() {
+        return this.stateOfCharge;
+    }
+
+    /**
+     * @return recent voltages, in volts.
+     */
+    public @NotNull MetricWindow voltage() {
+        return this.voltage;
+    }
+
+    /**
+     * @return recent temperatures, in Celsius. Empty if the battery does not report its temperature.
+     */
+    public @NotNull MetricWindow temperature() {
+        return this.temperature;
+    }
+}
@@ -0,0 +1,17 @@
+package net.lostluma.battery.api.history;
+
+/**
+ * Receives the buckets of a {@link RollupTier} query, without allocating an object per bucket.
+ */
+@FunctionalInterface
+public interface BucketVisitor {
+    /**
+     * @param startMillis start of the bucket, in milliseconds since the epoch.
+     * @param count the amount of samples aggregated into the bucket.
+     * @param min the smallest sample.
+     * @param max the largest sample.
+     * @param mean the arithmetic mean of all samples.
+     * @param last the newest sample.
+     */
+    void visit(long startMillis, int count, float min, float max, float mean, float last);
+}
@@ -0,0 +1,51 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.BatterySnapshot;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Numeric fields of a {@link BatterySnapshot} which can be aggregated.
+ */
+public enum Field {
+    STATE_OF_CHARGE,
+    ENERGY,
+    ENERGY_FULL,
+    ENERGY_FULL_DESIGN,
+    ENERGY_RATE,
+    VOLTAGE,
+    STATE_OF_HEALTH,
+    TEMPERATURE,
+    TIME_TO_FULL,
+    TIME_TO_EMPTY;
+
+    /**
+     * @param snapshot the snapshot.
+     * @return the field's value in the snapshot, {@link Float#NaN} if it is not available.
+     */
+    public float of(@NotNull BatterySnapshot snapshot) {
+        switch (this) {
+            case STATE_OF_CHARGE:
+                return snapshot.stateOfCharge();
+            case ENERGY:
+                return snapshot.energy();
+            case ENERGY_FULL:
+                return snapshot.energyFull();
+            case ENERGY_FULL_DESIGN:
+                return snapshot.energyFullDesign();
+            case ENERGY_RATE:
+                return snapshot.energyRate();
+            case VOLTAGE:
+                return snapshot.voltage();
+            case STATE_OF_HEALTH:
+                return snapshot.stateOfHealth();
+            case TEMPERATURE:
+                return snapshot.temperatureCelsiusOrNaN();
+            case TIME_TO_FULL:
+                return snapshot.timeToFullSeconds();
+            case TIME_TO_EMPTY:
+                return snapshot.timeToEmptySeconds();
+            default:
+                throw new AssertionError(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.impl.history.SegmentReader;
+import net.lostluma.battery.impl.history.Segments;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Sequential cursor over the updates logged by a {@link HistoryRecorder}.
+ * <p>
+ * Records are decoded in place, accessors return values of the current record and no objects are allocated
+ * while scanning. Segments which lie entirely outside the requested time range are skipped without decoding.
+ *
+ * <pre>{@code
+ * HistoryReader reader = HistoryReader.open(root, HistoryRecorder.name(battery), from, to);
+ *
+ * while (reader.next()) {
+ *     total += reader.energyRate();
+ * }
+ * }</pre>
+ */
+public final class HistoryReader {
+    private static final State[] STATES = State.values();
+
+    private final List<Path> segments;
+    private final long from;
+    private final long to;
+
+    private int index;
+    private SegmentReader current;
+
+    private HistoryReader(List<Path> segments, long from, long to) {
+        this.segments = segments;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Open a battery's log for reading.
+     * <p>
+     * Only records with a timestamp within the range are returned. Records appended after opening
+     * may or may not be returned.
+     *
+     * @param root the directory holding the logs of all batteries.
+     * @param name the name of the battery's log, see {@link HistoryRecorder#name(net.lostluma.battery.api.Battery)}.
+     * @param fromMillis start of the time range in milliseconds since the epoch, inclusive.
+     * @param toMillis end of the time range in milliseconds since the epoch, inclusive.
+     * @return the reader, positioned before the first record.
+     * @throws IOException listing the segment files failed.
+     */
+    public static @NotNull HistoryReader open(@NotNull Path root, @NotNull String name, long fromMillis, long toMillis) throws IOException {
+        return new HistoryReader(Segments.list(Segments.directory(root, name)), fromMillis, toMillis);
+    }
+
+    /**
+     * Advance to the next record within the time range.
+     *
+     * @return whether there was another record.
+     * @throws IOException opening a segment file failed.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (this.current == null) {
+                if (this.index >= this.segments.size()) {
+                    return false;
+                }
+
+                SegmentReader reader = SegmentReader.open(this.segments.get(this.index++));
+
+                if (reader == null || !reader.overlaps(this.from, this.to)) {
+                    continue;
+                }
+
+                this.current = reader;
+            }
+
+            while (this.current.next()) {
+                long timestamp = this.current.timestamp();
+
+                if (timestamp > this.to) {
+                    break; // Timestamps only decrease if the clock is adjusted, stop at the end of the range
+                } else if (timestamp >= this.from) {
+                    return true;
+                }
+            }
+
+            this.current = null;
+        }
+    }
+
+    /**
+     * @return the time at which the record was written, in milliseconds since the epoch.
+     */
+    public long timestampMillis() {
+        return this.current.timestamp();
+    }
+
+    public float stateOfCharge() {
+        return this.current.value(Segments.STATE_OF_CHARGE);
+    }
+
+    public float energy() {
+        return this.current.value(Segments.ENERGY);
+    }
+
+    public float energyFull() {
+        return this.current.value(Segments.ENERGY_FULL);
+    }
+
+    public float energyFullDesign() {
+        return this.current.value(Segments.ENERGY_FULL_DESIGN);
+    }
+
+    public float energyRate() {
+        return this.current.value(Segments.ENERGY_RATE);
+    }
+
+    public float voltage() {
+        return this.current.value(Segments.VOLTAGE);
+    }
+
+    public float stateOfHealth() {
+        return this.current.value(Segments.STATE_OF_HEALTH);
+    }
+
+    public @NotNull State state() {
+        return STATES[this.current.state()];
+    }
+
+    public float temperatureCelsiusOrNaN() {
+        return this.current.value(Segments.TEMPERATURE);
+    }
+
+    public long cycleCountOrMin() {
+        return this.current.cycleCount();
+    }
+
+    public float timeToFullSeconds() {
+        return this.current.value(Segments.TIME_TO_FULL);
+    }
+
+    public float timeToEmptySeconds() {
+        return this.current.value(Segments.TIME_TO_EMPTY);
+    }
+}
@@ -0,0 +1,162 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.impl.history.SegmentWriter;
+import net.lostluma.battery.impl.history.Segments;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Persistent, append-only log of a battery's updates.
+ * <p>
+ * Records are written into memory-mapped segment files below {@code root/<name>}, see {@link #name(Battery)},
+ * using a compact encoding of a few bytes per record when values change slowly. A new segment is started once
+ * the current one is full, and every time a recorder is created. Use {@link HistoryReader} to scan the recorded updates.
+ */
+public final class HistoryRecorder implements Consumer<BatterySnapshot> {
+    private final Path directory;
+    private final int segmentSize;
+
+    private final float[] values = new float[Segments.FLOATS];
+
+    private long sequence;
+    private @Nullable SegmentWriter writer;
+    private @Nullable IOException failure;
+    private Battery battery;
+
+    /**
+     * @param root the directory holding the logs of all batteries.
+     * @param name the name of the battery's log, see {@link #name(Battery)}.
+     * @param segmentSize the size of each segment file in bytes.
+     * @throws IllegalArgumentException the segment size is too small to hold a record, or the name is empty.
+     */
+    public HistoryRecorder(@NotNull Path root, @NotNull String name, int segmentSize) {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Segment size must be at least 4096 bytes.");
+        }
+
+        this.directory = Segments.directory(root, name);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Creates a recorder which logs every update of the battery, starting with its current snapshot.
+     *
+     * @param battery the battery to record.
+     * @param root the directory holding the logs of all batteries.
+     * @param segmentSize the size of each segment file in bytes.
+     * @return the new recorder.
+     */
+    public static @NotNull HistoryRecorder attach(@NotNull Battery battery, @NotNull Path root, int segmentSize) {
+        HistoryRecorder recorder = new HistoryRecorder(root, name(battery), segmentSize);
+
+        recorder.battery = battery;
+
+        // Listen first, so no update is missed, the current snapshot is ignored if one arrived already
+        battery.addUpdateListener(recorder);
+        recorder.accept(battery.snapshot());
+
+        return recorder;
+    }
+
+    /**
+     * The name of a battery's log, its serial number if available, otherwise its vendor and model.
+     * <p>
+     * Names don't depend on the backend, so logs are continued when switching between them.
+     * Batteries without a serial number which share their vendor and model also share a log.
+     *
+     * @param battery the battery.
+     * @return the name of the battery's log.
+     */
+    public static @NotNull String name(@NotNull Battery battery) {
+        Optional<String> serial = battery.serialNumber();
+
+        if (serial.isPresent() && !serial.get().isEmpty()) {
+            return serial.get();
+        }
+
+        return battery.vendor().orElse("unknown") + "-" + battery.model().orElse("unknown");
+    }
+
+    /**
+     * Stop recording updates of the battery this recorder was attached to.
+     */
+    public synchronized void detach() {
+        Battery battery = this.battery;
+
+        if (battery != null) {
+            battery.removeUpdateListener(this);
+
+            // Sequence numbers are only comparable between snapshots of the same battery
+            this.battery = null;
+            this.sequence = 0;
+        }
+    }
+
+    /**
+     * Record a snapshot, timestamped with the current wall clock time.
+     * <p>
+     * Snapshots which are not newer than the last recorded one are ignored.
+     * If starting a segment fails the snapshot is dropped, and the next one is written to a new segment,
+     * see {@link #failure()}.
+     *
+     * @param snapshot the snapshot to record.
+     */
+    @Override
+    public synchronized void accept(@NotNull BatterySnapshot snapshot) {
+        if (snapshot.sequence() <= this.sequence) {
+            return;
+        }
+
+        this.sequence = snapshot.sequence();
+
+        float[] values = this.values;
+        values[Segments.STATE_OF_CHARGE] = snapshot.stateOfCharge();
+        values[Segments.ENERGY] = snapshot.energy();
+        values[Segments.ENERGY_FULL] = snapshot.energyFull();
+        values[Segments.ENERGY_FULL_DESIGN] = snapshot.energyFullDesign();
+        values[Segments.ENERGY_RATE] = snapshot.energyRate();
+        values[Segments.VOLTAGE] = snapshot.voltage();
+        values[Segments.STATE_OF_HEALTH] = snapshot.stateOfHealth();
+        values[Segments.TEMPERATURE] = snapshot.temperatureCelsiusOrNaN();
+        values[Segments.TIME_TO_FULL] = snapshot.timeToFullSeconds();
+        values[Segments.TIME_TO_EMPTY] = snapshot.timeToEmptySeconds();
+
+        try {
+            if (this.writer == null || !this.writer.hasSpace()) {
+                this.writer = SegmentWriter.create(this.directory, this.segmentSize);
+            }
+
+            this.writer.append(System.currentTimeMillis(), values, snapshot.state().ordinal(), snapshot.cycleCountOrMin());
+            this.failure = null;
+        } catch (IOException e) {
+            // Listeners run inside of update calls, so don't propagate, e.g. a full disk may be cleaned up later
+            this.failure = e;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Write all recorded updates to the storage device.
+     * <p>
+     * Records are visible to readers right away, this is only required to survive a system crash.
+     */
+    public synchronized void flush() {
+        if (this.writer != null) {
+            this.writer.force();
+        }
+    }
+
+    /**
+     * @return the error which caused the most recent snapshot to be dropped, if it was not recorded.
+     */
+    public synchronized @NotNull Optional<IOException> failure() {
+        return Optional.ofNullable(this.failure);
+    }
+}
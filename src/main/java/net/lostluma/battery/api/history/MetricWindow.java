@@ -0,0 +1,215 @@
+package net.lostluma.battery.api.history;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Fixed-capacity ring buffer of samples of a single metric, with aggregates over the retained samples.
+ * <p>
+ * A window retains at most {@code capacity} samples, and optionally only samples which are at most {@code maxAge}
+ * older than the newest sample. Appending a sample and reading any aggregate takes constant (amortized) time,
+ * and no memory is allocated after construction. Samples which are {@link Float#NaN} are ignored.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class MetricWindow {
+    private final int capacity;
+    private final long maxAge;
+    private final float alpha;
+
+    private final float[] values;
+    private final long[] timestamps;
+
+    // Sequence numbers of the oldest retained sample and of the next sample
+    private long first;
+    private long next;
+
+    private double sum;
+    private float average = Float.NaN;
+
+    // Monotonic queues of sample sequence numbers, their front holds the minimum and maximum
+    private final long[] minimums;
+    private final long[] maximums;
+    private int minimumHead;
+    private int minimumSize;
+    private int maximumHead;
+    private int maximumSize;
+
+    /**
+     * @param capacity the maximum amount of samples to retain.
+     * @param maxAge the maximum age of retained samples relative to the newest sample, in nanoseconds.
+     * @param alpha the smoothing factor of the exponentially weighted moving average, between zero and one.
+     */
+    @ApiStatus.Internal
+    public MetricWindow(int capacity, long maxAge, float alpha) {
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.alpha = alpha;
+
+        this.values = new float[capacity];
+        this.timestamps = new long[capacity];
+
+        this.minimums = new long[capacity];
+        this.maximums = new long[capacity];
+    }
+
+    /**
+     * @param timestamp the sample's {@link System#nanoTime()} timestamp.
+     * @param value the sample's value.
+     */
+    public synchronized void append(long timestamp, float value) {
+        if (Float.isNaN(value)) {
+            return;
+        }
+
+        if (this.next - this.first == this.capacity) {
+            this.evict();
+        }
+
+        int index = this.index(this.next);
+
+        this.values[index] = value;
+        this.timestamps[index] = timestamp;
+        this.sum += value;
+
+        while (this.minimumSize > 0 && this.values[this.index(this.minimumBack())] >= value) {
+            this.minimumSize --;
+        }
+
+        this.minimums[(this.minimumHead + this.minimumSize) % this.capacity] = this.next;
+        this.minimumSize ++;
+
+        while (this.maximumSize > 0 && this.values[this.index(this.maximumBack())] <= value) {
+            this.maximumSize --;
+        }
+
+        this.maximums[(this.maximumHead + this.maximumSize) % this.capacity] = this.next;
+        this.maximumSize ++;
+
+        this.next ++;
+
+        // Always retain the newest sample
+        while (this.next - this.first > 1 && timestamp - this.timestamps[this.index(this.first)] > this.maxAge) {
+            this.evict();
+        }
+
+        if (Float.isNaN(this.average)) {
+            this.average = value;
+        } else {
+            this.average += this.alpha * (value - this.average);
+        }
+    }
+
+    /**
+     * @return the amount of retained samples.
+     */
+    public synchronized int size() {
+        return (int) (this.next - this.first);
+    }
+
+    /**
+     * @return the maximum amount of samples this window retains.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @param index the sample's index, from zero for the oldest retained sample.
+     * @return the sample's value.
+     * @throws IndexOutOfBoundsException no sample exists at the index.
+     */
+    public synchronized float value(int index) {
+        return this.values[this.checkedIndex(index)];
+    }
+
+    /**
+     * @param index the sample's index, from zero for the oldest retained sample.
+     * @return the sample's {@link System#nanoTime()} timestamp.
+     * @throws IndexOutOfBoundsException no sample exists at the index.
+     */
+    public synchronized long timestamp(int index) {
+        return this.timestamps[this.checkedIndex(index)];
+    }
+
+    /**
+     * @return the newest sample's value, or {@link Float#NaN} if the window is empty.
+     */
+    public synchronized float latest() {
+        return this.next == this.first ? Float.NaN : this.values[this.index(this.next - 1)];
+    }
+
+    /**
+     * @return the smallest retained value, or {@link Float#NaN} if the window is empty.
+     */
+    public synchronized float min() {
+        return this.minimumSize == 0 ? Float.NaN : this.values[this.index(this.minimums[this.minimumHead])];
+    }
+
+    /**
+     * @return the largest retained value, or {@link Float#NaN} if the window is empty.
+     */
+    public synchronized float max() {
+        return this.maximumSize == 0 ? Float.NaN : this.values[this.index(this.maximums[this.maximumHead])];
+    }
+
+    /**
+     * @return the arithmetic mean of all retained values, or {@link Float#NaN} if the window is empty.
+     */
+    public synchronized float mean() {
+        long size = this.next - this.first;
+        return size == 0 ? Float.NaN : (float) (this.sum / size);
+    }
+
+    /**
+     * The exponentially weighted moving average of all samples ever appended.
+     * <p>
+     * Unlike the other aggregates it is not limited to the retained samples, as older samples only fade out gradually.
+     *
+     * @return the moving average, or {@link Float#NaN} if no sample was appended yet.
+     */
+    public synchronized float ewma() {
+        return this.average;
+    }
+
+    private void evict() {
+        long sequence = this.first;
+        this.sum -= this.values[this.index(sequence)];
+
+        if (this.minimumSize > 0 && this.minimums[this.minimumHead] == sequence) {
+            this.minimumHead = (this.minimumHead + 1) % this.capacity;
+            this.minimumSize --;
+        }
+
+        if (this.maximumSize > 0 && this.maximums[this.maximumHead] == sequence) {
+            this.maximumHead = (this.maximumHead + 1) % this.capacity;
+            this.maximumSize --;
+        }
+
+        this.first ++;
+
+        // Reset accumulated rounding errors whenever the window runs empty
+        if (this.first == this.next) {
+            this.sum = 0.0;
+        }
+    }
+
+    private long minimumBack() {
+        return this.minimums[(this.minimumHead + this.minimumSize - 1) % this.capacity];
+    }
+
+    private long maximumBack() {
+        return this.maximums[(this.maximumHead + this.maximumSize - 1) % this.capacity];
+    }
+
+    private int checkedIndex(int index) {
+        if (index < 0 || index >= this.next - this.first) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + (this.next - this.first) + " samples");
+        }
+
+        return this.index(this.first + index);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % this.capacity);
+    }
+}
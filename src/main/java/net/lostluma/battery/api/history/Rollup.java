@@ -0,0 +1,221 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Downsamples a battery's updates into tiers of increasingly coarse {@link RollupTier time buckets}.
+ * <p>
+ * Every snapshot is added to each tier directly, so each bucket aggregates the raw samples and not the buckets
+ * of a finer tier. Processing a snapshot takes constant time per tier, and memory use is fixed when the rollup
+ * is created, at roughly {@code 24 * fields} bytes per bucket regardless of how long it runs.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class Rollup implements Consumer<BatterySnapshot> {
+    private static final Field[] FIELDS = Field.values();
+
+    private final List<RollupTier> tiers;
+    private final float[] values = new float[FIELDS.length];
+
+    private long sequence;
+    private Battery battery;
+    private Listener listener;
+
+    private Rollup(List<RollupTier> tiers) {
+        this.tiers = tiers;
+    }
+
+    /**
+     * @return a builder with no tiers.
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a rollup with one hour of seconds, one day of minutes, thirty days of hours, and a year of days.
+     *
+     * @return the new rollup.
+     */
+    public static @NotNull Rollup standard() {
+        return builder()
+            .tier(Duration.ofSeconds(1), 3600)
+            .tier(Duration.ofMinutes(1), 1440)
+            .tier(Duration.ofHours(1), 720)
+            .tier(Duration.ofDays(1), 365)
+            .build();
+    }
+
+    /**
+     * Start processing every update of the battery, starting with its current snapshot.
+     *
+     * @param battery the battery to downsample.
+     * @return this rollup.
+     * @throws IllegalStateException the rollup is already attached to a battery.
+     */
+    public synchronized @NotNull Rollup attach(@NotNull Battery battery) {
+        if (this.battery != null) {
+            throw new IllegalStateException("Rollup is already attached to a battery.");
+        }
+
+        this.battery = battery;
+        this.listener = new Listener();
+
+        // Sequence numbers are only comparable between snapshots of the same battery
+        this.sequence = 0;
+
+        // Listen first, so no update is missed, the current snapshot is ignored if one arrived already
+        battery.addUpdateListener(this.listener);
+        this.accept(battery.snapshot());
+
+        return this;
+    }
+
+    /**
+     * Stop processing updates of the battery this rollup was attached to.
+     * The rollup keeps its buckets and may be attached to another battery afterwards.
+     */
+    public synchronized void detach() {
+        Battery battery = this.battery;
+
+        if (battery != null) {
+            battery.removeUpdateListener(this.listener);
+
+            this.battery = null;
+            this.listener = null;
+            this.sequence = 0;
+        }
+    }
+
+    /**
+     * Process a snapshot, timestamped with the current wall clock time.
+     * Snapshots which are not newer than the last processed one are ignored.
+     *
+     * @param snapshot the snapshot to process.
+     */
+    @Override
+    public void accept(@NotNull BatterySnapshot snapshot) {
+        this.append(System.currentTimeMillis(), snapshot);
+    }
+
+    /**
+     * Process a snapshot taken at the given time, for example when replaying recorded history.
+     * Snapshots which are not newer than the last processed one are ignored.
+     *
+     * @param timestampMillis the time the snapshot was taken, in milliseconds since the epoch.
+     * @param snapshot the snapshot to process.
+     */
+    public synchronized void append(long timestampMillis, @NotNull BatterySnapshot snapshot) {
+        if (snapshot.sequence() <= this.sequence) {
+            return;
+        }
+
+        this.sequence = snapshot.sequence();
+
+        for (int index = 0; index < FIELDS.length; index++) {
+            this.values[index] = FIELDS[index].of(snapshot);
+        }
+
+        for (RollupTier tier : this.tiers) {
+            tier.append(timestampMillis, this.values);
+        }
+    }
+
+    /**
+     * Visit the buckets of the finest tier which still retains the start of the time range,
+     * or of the coarsest tier if none does.
+     *
+     * @param field the field to query.
+     * @param fromMillis start of the time range in milliseconds since the epoch, inclusive.
+     * @param toMillis end of the time range in milliseconds since the epoch, inclusive.
+     * @param visitor receives each bucket, oldest first.
+     * @return the amount of buckets visited.
+     */
+    public int query(@NotNull Field field, long fromMillis, long toMillis, @NotNull BucketVisitor visitor) {
+        RollupTier selected = this.tiers.get(this.tiers.size() - 1);
+
+        for (RollupTier tier : this.tiers) {
+            if (tier.oldestMillis() <= fromMillis) {
+                selected = tier;
+                break;
+            }
+        }
+
+        return selected.query(field, fromMillis, toMillis, visitor);
+    }
+
+    /**
+     * @return all tiers, from finest to coarsest.
+     */
+    public @NotNull List<RollupTier> tiers() {
+        return this.tiers;
+    }
+
+    // Registered per attachment, so updates still being delivered by a detached battery are ignored
+    private final class Listener implements Consumer<BatterySnapshot> {
+        @Override
+        public void accept(BatterySnapshot snapshot) {
+            long timestampMillis = System.currentTimeMillis();
+
+            synchronized (Rollup.this) {
+                if (Rollup.this.listener == this) {
+                    Rollup.this.append(timestampMillis, snapshot);
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final List<RollupTier> tiers = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a tier, tiers must be added from finest to coarsest.
+         *
+         * @param resolution the duration of each bucket, at least one millisecond.
+         * @param capacity the amount of buckets to retain.
+         * @return this builder.
+         * @throws IllegalArgumentException the resolution or capacity are invalid.
+         */
+        public @NotNull Builder tier(@NotNull Duration resolution, int capacity) {
+            long millis = resolution.toMillis();
+
+            if (millis <= 0) {
+                throw new IllegalArgumentException("Resolution must be at least one millisecond.");
+            }
+
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Capacity must be positive.");
+            }
+
+            if (!this.tiers.isEmpty() && this.tiers.get(this.tiers.size() - 1).resolutionMillis() >= millis) {
+                throw new IllegalArgumentException("Tiers must be added from finest to coarsest.");
+            }
+
+            this.tiers.add(new RollupTier(millis, capacity));
+            return this;
+        }
+
+        /**
+         * @return the new rollup.
+         * @throws IllegalStateException no tier was added.
+         */
+        public @NotNull Rollup build() {
+            if (this.tiers.isEmpty()) {
+                throw new IllegalStateException("At least one tier is required.");
+            }
+
+            return new Rollup(Collections.unmodifiableList(new ArrayList<>(this.tiers)));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package net.lostluma.battery.api.history;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity ring of time buckets, each holding the minimum, maximum, mean, and last value of every {@link Field}.
+ * <p>
+ * Buckets are aligned to multiples of the resolution since the epoch. Once a sample falls into a bucket beyond the
+ * capacity, the oldest bucket is reused, so the tier always covers the most recent {@code capacity * resolution}.
+ * Appending a sample takes constant time and no memory is allocated after construction.
+ * Samples which are {@link Float#NaN} are ignored.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class RollupTier {
+    private static final int FIELDS = Field.values().length;
+
+    private final long resolution;
+    private final int capacity;
+
+    // Per bucket, the bucket number is its start divided by the resolution
+    private final long[] numbers;
+
+    // Per bucket and field, at index bucket * FIELDS + field
+    private final float[] minimums;
+    private final float[] maximums;
+    private final float[] lasts;
+    private final double[] sums;
+    private final int[] counts;
+
+    private long newest = Long.MIN_VALUE;
+
+    /**
+     * @param resolution the duration of each bucket, in milliseconds.
+     * @param capacity the amount of buckets to retain.
+     */
+    @ApiStatus.Internal
+    public RollupTier(long resolution, int capacity) {
+        this.resolution = resolution;
+        this.capacity = capacity;
+
+        this.numbers = new long[capacity];
+        this.minimums = new float[capacity * FIELDS];
+        this.maximums = new float[capacity * FIELDS];
+        this.lasts = new float[capacity * FIELDS];
+        this.sums = new double[capacity * FIELDS];
+        this.counts = new int[capacity * FIELDS];
+
+        // No bucket number maps to its slot at the start
+        Arrays.fill(this.numbers, Long.MIN_VALUE);
+    }
+
+    /**
+     * Add a sample to the bucket containing the timestamp.
+     * <p>
+     * Samples older than the oldest retained bucket are ignored.
+     *
+     * @param timestampMillis the sample's timestamp, in milliseconds since the epoch.
+     * @param values the sample's values, indexed by {@link Field#ordinal()}.
+     */
+    @ApiStatus.Internal
+    public synchronized void append(long timestampMillis, float[] values) {
+        long number = Math.floorDiv(timestampMillis, this.resolution);
+
+        if (this.newest != Long.MIN_VALUE && number <= this.newest - this.capacity) {
+            return;
+        }
+
+        int bucket = (int) Math.floorMod(number, (long) this.capacity);
+        int offset = bucket * FIELDS;
+
+        if (this.numbers[bucket] != number) {
+            this.numbers[bucket] = number;
+
+            for (int field = offset; field < offset + FIELDS; field++) {
+                this.counts[field] = 0;
+                this.sums[field] = 0.0;
+            }
+        }
+
+        this.newest = Math.max(this.newest, number);
+
+        for (int field = 0; field < FIELDS; field++) {
+            float value = values[field];
+
+            if (Float.isNaN(value)) {
+                continue;
+            }
+
+            int index = offset + field;
+
+            if (this.counts[index] == 0) {
+                this.minimums[index] = value;
+                this.maximums[index] = value;
+            } else {
+                this.minimums[index] = Math.min(this.minimums[index], value);
+                this.maximums[index] = Math.max(this.maximums[index], value);
+            }
+
+            this.lasts[index] = value;
+            this.sums[index] += value;
+            this.counts[index] ++;
+        }
+    }
+
+    /**
+     * Visit all buckets which overlap the time range and hold samples of the field, oldest first.
+     *
+     * @param field the field to query.
+     * @param fromMillis start of the time range in milliseconds since the epoch, inclusive.
+     * @param toMillis end of the time range in milliseconds since the epoch, inclusive.
+     * @param visitor receives each bucket.
+     * @return the amount of buckets visited.
+     */
+    public synchronized int query(@NotNull Field field, long fromMillis, long toMillis, @NotNull BucketVisitor visitor) {
+        if (this.newest == Long.MIN_VALUE || fromMillis > toMillis) {
+            return 0;
+        }
+
+        long first = Math.max(Math.floorDiv(fromMillis, this.resolution), this.newest - this.capacity + 1);
+        long last = Math.min(Math.floorDiv(toMillis, this.resolution), this.newest);
+
+        int visited = 0;
+
+        for (long number = first; number <= last; number++) {
+            int bucket = (int) Math.floorMod(number, (long) this.capacity);
+            int index = bucket * FIELDS + field.ordinal();
+
+            if (this.numbers[bucket] != number || this.counts[index] == 0) {
+                continue;
+            }
+
+            int count = this.counts[index];
+            visitor.visit(number * this.resolution, count, this.minimums[index], this.maximums[index], (float) (this.sums[index] / count), this.lasts[index]);
+
+            visited ++;
+        }
+
+        return visited;
+    }
+
+    /**
+     * @return the start of the oldest retained bucket in milliseconds since the epoch, or {@link Long#MAX_VALUE} if the tier is empty.
+     */
+    public synchronized long oldestMillis() {
+        return this.newest == Long.MIN_VALUE ? Long.MAX_VALUE : (this.newest - this.capacity + 1) * this.resolution;
+    }
+
+    /**
+     * @return the duration of each bucket, in milliseconds.
+     */
+    public long resolutionMillis() {
+        return this.resolution;
+    }
+
+    /**
+     * @return the amount of buckets this tier retains.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,199 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.State;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Estimates time until a battery is full or empty from a smoothed energy rate.
+ * <p>
+ * The energy rate is filtered with an exponentially weighted moving average whose weight depends on the time
+ * between snapshots, so irregular update intervals are handled correctly. Each snapshot is processed in constant
+ * time without allocating. The filter restarts whenever the battery switches between charging and discharging.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class TimeEstimator implements Consumer<BatterySnapshot> {
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    private final double timeConstant;
+
+    private long sequence;
+    private Battery battery;
+
+    private State state = State.UNKNOWN;
+    private long timestamp;
+    private float energy;
+    private float energyFull;
+
+    // Filter state, weight is the share of the average backed by actual samples
+    private double rate = Double.NaN;
+    private double variance;
+    private double weight;
+
+    /**
+     * @param timeConstant how quickly the estimate follows changes, older rates lose about two thirds of their weight within this time.
+     * @throws IllegalArgumentException the time constant is not positive.
+     */
+    public TimeEstimator(@NotNull Duration timeConstant) {
+        if (timeConstant.isNegative() || timeConstant.isZero()) {
+            throw new IllegalArgumentException("Time constant must be positive.");
+        }
+
+        this.timeConstant = timeConstant.getSeconds() >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : timeConstant.toNanos();
+    }
+
+    /**
+     * Creates an estimator which processes every update of the battery, starting with its current snapshot.
+     *
+     * @param battery the battery to estimate.
+     * @param timeConstant how quickly the estimate follows changes.
+     * @return the new estimator.
+     */
+    public static @NotNull TimeEstimator attach(@NotNull Battery battery, @NotNull Duration timeConstant) {
+        TimeEstimator estimator = new TimeEstimator(timeConstant);
+
+        estimator.battery = battery;
+
+        // Listen first, so no update is missed, the current snapshot is ignored if one arrived already
+        battery.addUpdateListener(estimator);
+        estimator.accept(battery.snapshot());
+
+        return estimator;
+    }
+
+    /**
+     * Stop processing updates of the battery this estimator was attached to.
+     */
+    public synchronized void detach() {
+        Battery battery = this.battery;
+
+        if (battery != null) {
+            battery.removeUpdateListener(this);
+
+            // Sequence numbers are only comparable between snapshots of the same battery
+            this.battery = null;
+            this.sequence = 0;
+        }
+    }
+
+    /**
+     * Process a snapshot. Snapshots which are not newer than the last processed one are ignored.
+     *
+     * @param snapshot the snapshot to process.
+     */
+    @Override
+    public synchronized void accept(@NotNull BatterySnapshot snapshot) {
+        if (snapshot.sequence() <= this.sequence) {
+            return;
+        }
+
+        State state = snapshot.state();
+        long elapsed = snapshot.timestamp() - this.timestamp;
+
+        if (state != this.state || !(state == State.CHARGING || state == State.DISCHARGING)) {
+            this.rate = Double.NaN;
+            this.variance = 0.0;
+            this.weight = 0.0;
+        }
+
+        double sample = snapshot.energyRate();
+
+        // Some drivers report no rate, derive it from the change in energy instead
+        if (sample <= 0.0 && !Double.isNaN(this.rate) && elapsed > 0) {
+            sample = Math.abs(snapshot.energy() - this.energy) / (elapsed / 1_000_000_000.0) * SECONDS_PER_HOUR;
+        }
+
+        if (state == State.CHARGING || state == State.DISCHARGING) {
+            if (Double.isNaN(this.rate)) {
+                this.rate = sample;
+            } else if (elapsed > 0) {
+                double alpha = 1.0 - Math.exp(-elapsed / this.timeConstant);
+                double difference = sample - this.rate;
+
+                this.rate += alpha * difference;
+                this.variance = (1.0 - alpha) * (this.variance + alpha * difference * difference);
+                this.weight += alpha * (1.0 - this.weight);
+            }
+        }
+
+        this.sequence = snapshot.sequence();
+        this.state = state;
+        this.timestamp = snapshot.timestamp();
+        this.energy = snapshot.energy();
+        this.energyFull = snapshot.energyFull();
+    }
+
+    /**
+     * @return the smoothed energy rate in watts, or {@link Float#NaN} if the battery is neither charging nor discharging.
+     */
+    public synchronized float smoothedEnergyRate() {
+        return (float) this.rate;
+    }
+
+    /**
+     * How much the current estimate can be trusted, from zero to one.
+     * <p>
+     * Confidence is low shortly after the filter (re)started, and while the energy rate fluctuates strongly.
+     *
+     * @return the estimate's confidence, zero if there is no estimate.
+     */
+    public synchronized float confidence() {
+        if (Double.isNaN(this.rate) || this.rate <= 0.0) {
+            return 0.0f;
+        }
+
+        double variation = Math.sqrt(this.variance) / this.rate;
+        return (float) (this.weight / (1.0 + variation));
+    }
+
+    /**
+     * @return seconds until the battery is empty, or {@link Float#NaN} if it is not discharging.
+     */
+    public synchronized float estimatedSecondsToEmpty() {
+        if (this.state != State.DISCHARGING || !(this.rate > 0.0)) {
+            return Float.NaN;
+        }
+
+        return (float) (this.energy / this.rate * SECONDS_PER_HOUR);
+    }
+
+    /**
+     * @return seconds until the battery is full, or {@link Float#NaN} if it is not charging.
+     */
+    public synchronized float estimatedSecondsToFull() {
+        if (this.state != State.CHARGING || !(this.rate > 0.0)) {
+            return Float.NaN;
+        }
+
+        return (float) (Math.max(this.energyFull - this.energy, 0.0f) / this.rate * SECONDS_PER_HOUR);
+    }
+
+    /**
+     * @return smoothed time until the battery is empty, if it is currently discharging.
+     */
+    public @NotNull Optional<Duration> estimatedTimeToEmpty() {
+        return toDuration(this.estimatedSecondsToEmpty());
+    }
+
+    /**
+     * @return smoothed time until the battery is full, if it is currently charging.
+     */
+    public @NotNull Optional<Duration> estimatedTimeToFull() {
+        return toDuration(this.estimatedSecondsToFull());
+    }
+
+    private static Optional<Duration> toDuration(float seconds) {
+        if (Float.isNaN(seconds)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(Duration.of((long) seconds, ChronoUnit.SECONDS));
+        }
+    }
+}
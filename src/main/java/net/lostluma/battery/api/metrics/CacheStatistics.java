@@ -0,0 +1,40 @@
+package net.lostluma.battery.api.metrics;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Outcomes of updates with a maximum age, and of calls to {@link net.lostluma.battery.api.Manager#shared(java.time.Duration) shared managers}.
+ */
+public final class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+
+    @ApiStatus.Internal
+    public CacheStatistics(long hits, long misses, long coalesced) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * @return updates which were skipped because the information was recent enough.
+     */
+    public long hits() {
+        return this.hits;
+    }
+
+    /**
+     * @return updates which refreshed the battery.
+     */
+    public long misses() {
+        return this.misses;
+    }
+
+    /**
+     * @return updates which used the result of a refresh that completed while they were waiting.
+     */
+    public long coalesced() {
+        return this.coalesced;
+    }
+}
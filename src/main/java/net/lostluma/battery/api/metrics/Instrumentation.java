@@ -0,0 +1,54 @@
+package net.lostluma.battery.api.metrics;
+
+import net.lostluma.battery.impl.instrument.Probes;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Latency statistics of the native backend.
+ * <p>
+ * Recording is disabled by default, and only costs a single volatile read per call while disabled.
+ * <p>
+ * Independent of this, JDK Flight Recorder events in the {@code Battery} category are emitted on Java 11
+ * and newer whenever a recording enables them.
+ */
+public final class Instrumentation {
+    private Instrumentation() {
+    }
+
+    /**
+     * @param value whether to record the latency of native calls.
+     */
+    public static void setEnabled(boolean value) {
+        Probes.setEnabled(value);
+    }
+
+    public static boolean isEnabled() {
+        return Probes.isEnabled();
+    }
+
+    /**
+     * @param operation the operation to get statistics for.
+     * @return the latencies recorded so far.
+     */
+    public static @NotNull LatencySnapshot latency(@NotNull Operation operation) {
+        return Probes.snapshot(operation);
+    }
+
+    /**
+     * Counters of {@link net.lostluma.battery.api.Battery#update(java.time.Duration)} outcomes.
+     * <p>
+     * These are counted even if recording latencies is disabled.
+     *
+     * @return the outcomes counted so far.
+     */
+    public static @NotNull CacheStatistics cacheStatistics() {
+        return Probes.cacheStatistics();
+    }
+
+    /**
+     * Discard all recorded latencies and counters.
+     */
+    public static void reset() {
+        Probes.reset();
+    }
+}
@@ -0,0 +1,127 @@
+package net.lostluma.battery.api.metrics;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Latency distribution of an operation at some point in time.
+ * <p>
+ * Latencies are counted in logarithmic buckets with eight buckets per power of two,
+ * so percentiles are accurate to within about 12.5 percent.
+ */
+public final class LatencySnapshot {
+    // Bucket values below this are exact
+    private static final int SUB_BUCKETS = 8;
+
+    private final long[] counts;
+    private final long count;
+    private final long errors;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    @ApiStatus.Internal
+    public LatencySnapshot(long[] counts, long count, long errors, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.errors = errors;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * @return amount of recorded calls, including failed ones.
+     */
+    public long count() {
+        return this.count;
+    }
+
+    /**
+     * @return amount of recorded calls which failed.
+     */
+    public long errors() {
+        return this.errors;
+    }
+
+    /**
+     * @return total time spent in all recorded calls, in nanoseconds.
+     */
+    public long totalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * @return time spent in the slowest recorded call, in nanoseconds.
+     */
+    public long maxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * @return average time spent per call in nanoseconds, or zero if nothing was recorded.
+     */
+    public double meanNanos() {
+        return this.count == 0 ? 0.0 : (double) this.totalNanos / this.count;
+    }
+
+    /**
+     * Returns an upper bound of the latency below which the given fraction of calls completed.
+     *
+     * @param fraction the fraction of calls, e.g. {@code 0.99} for the 99th percentile.
+     * @return the latency in nanoseconds, or zero if nothing was recorded.
+     * @throws IllegalArgumentException the fraction is not between zero and one.
+     */
+    public long percentileNanos(double fraction) {
+        if (!(fraction >= 0.0 && fraction <= 1.0)) {
+            throw new IllegalArgumentException("Fraction must be between zero and one.");
+        }
+
+        long total = 0;
+
+        for (long value : this.counts) {
+            total += value;
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max((long) Math.ceil(fraction * total), 1);
+
+        for (int index = 0; index < this.counts.length; index++) {
+            rank -= this.counts[index];
+
+            if (rank <= 0) {
+                return Math.min(upperBound(index), this.maxNanos);
+            }
+        }
+
+        return this.maxNanos;
+    }
+
+    @ApiStatus.Internal
+    public static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+
+        return (exponent - 2) * SUB_BUCKETS + sub;
+    }
+
+    @ApiStatus.Internal
+    public static int buckets() {
+        return bucket(Long.MAX_VALUE) + 1;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + 2;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - 3);
+
+        return lower + (1L << (exponent - 3)) - 1;
+    }
+}
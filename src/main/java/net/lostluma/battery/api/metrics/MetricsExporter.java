@@ -0,0 +1,52 @@
+package net.lostluma.battery.api.metrics;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.impl.metrics.MetricsExporterImpl;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Serves battery readings in the OpenMetrics text format on {@code /metrics}, using the JDK's built-in HTTP server.
+ * <p>
+ * Every value of a battery is exported as a gauge labelled with a key identifying the battery, its vendor, model,
+ * serial number and technology.
+ * Batteries are refreshed at most once per maximum age, concurrent scrapes of stale data share a single refresh.
+ * Scrapes within the maximum age are served from a cached response.
+ * Batteries are looked up again every 30 seconds, or as soon as one of them disappeared.
+ */
+public interface MetricsExporter extends AutoCloseable {
+    /**
+     * Creates a new exporter.
+     *
+     * @param manager the manager to get batteries from.
+     * @param address the address to listen on, use port zero to pick any free port.
+     * @param maxAge the longest time a refresh is reused for.
+     * @return the new exporter.
+     * @throws IllegalArgumentException the maximum age is negative.
+     */
+    static @NotNull MetricsExporter create(@NotNull Manager manager, @NotNull InetSocketAddress address, @NotNull Duration maxAge) {
+        return new MetricsExporterImpl(manager, address, maxAge);
+    }
+
+    /**
+     * Start listening for scrapes.
+     *
+     * @throws IOException binding the address failed.
+     * @throws IllegalStateException the exporter was already started or closed.
+     */
+    void start() throws IOException, IllegalStateException;
+
+    /**
+     * @return the address the exporter listens on, which includes the chosen port once started.
+     */
+    @NotNull InetSocketAddress address();
+
+    /**
+     * Stop listening. Does not close the manager.
+     */
+    @Override
+    void close(); // Remove throws Exception from AutoCloseable
+}
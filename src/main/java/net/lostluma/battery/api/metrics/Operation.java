@@ -0,0 +1,31 @@
+package net.lostluma.battery.api.metrics;
+
+/**
+ * Operations of the native backend whose latency is recorded.
+ */
+public enum Operation {
+    /**
+     * Installing and linking the native library.
+     */
+    LIBRARY_LOAD,
+    /**
+     * Creating a native manager.
+     */
+    MANAGER_CREATION,
+    /**
+     * Enumerating batteries, see {@link net.lostluma.battery.api.Manager#batteries()}.
+     */
+    ENUMERATION,
+    /**
+     * Refreshing batteries in bulk, see {@link net.lostluma.battery.api.Manager#refreshAll(java.util.Collection)}.
+     */
+    REFRESH,
+    /**
+     * Updating a single battery, see {@link net.lostluma.battery.api.Battery#update()}.
+     */
+    UPDATE,
+    /**
+     * Summarizing all batteries, see {@link net.lostluma.battery.api.Manager#aggregate()}.
+     */
+    AGGREGATION,
+}
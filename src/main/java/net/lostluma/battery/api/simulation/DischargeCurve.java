@@ -0,0 +1,42 @@
+package net.lostluma.battery.api.simulation;
+
+/**
+ * Maps the state of charge of a simulated battery to its terminal voltage.
+ */
+@FunctionalInterface
+public interface DischargeCurve {
+    /**
+     * A typical single cell lithium-ion curve, scaled to a three cell pack.
+     */
+    DischargeCurve LITHIUM_ION = stateOfCharge -> {
+        // Steep drop when almost empty, a long plateau, and a rise when almost full
+        float cell;
+
+        if (stateOfCharge < 0.1f) {
+            cell = 3.0f + stateOfCharge * 5.0f;
+        } else if (stateOfCharge < 0.9f) {
+            cell = 3.5f + (stateOfCharge - 0.1f) * 0.6875f;
+        } else {
+            cell = 4.05f + (stateOfCharge - 0.9f) * 1.5f;
+        }
+
+        return cell * 3.0f;
+    };
+
+    /**
+     * Creates a curve which interpolates linearly between two voltages.
+     *
+     * @param empty the voltage of an empty battery.
+     * @param full the voltage of a full battery.
+     * @return the new curve.
+     */
+    static DischargeCurve linear(float empty, float full) {
+        return stateOfCharge -> empty + (full - empty) * stateOfCharge;
+    }
+
+    /**
+     * @param stateOfCharge the state of charge, from zero to one.
+     * @return the voltage in volts.
+     */
+    float voltage(float stateOfCharge);
+}
@@ -0,0 +1,252 @@
+package net.lostluma.battery.api.simulation;
+
+import net.lostluma.battery.api.Manager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration of a simulated battery fleet, see {@link Manager#createSimulated(Simulation)}.
+ * <p>
+ * Simulated batteries drain and charge according to their configured power draw and discharge curve,
+ * randomly get plugged in and unplugged, and can appear, disappear and fail to update.
+ * Given the same seed and a fixed time step a simulation always behaves the same.
+ */
+public final class Simulation {
+    private final int batteries;
+    private final long seed;
+    private final float capacity;
+    private final DischargeCurve curve;
+    private final float dischargePower;
+    private final float chargePower;
+    private final float noise;
+    private final @Nullable Duration timeStep;
+    private final double timeScale;
+    private final double transitionsPerHour;
+    private final double hotplugProbability;
+    private final double failureProbability;
+
+    private Simulation(Builder builder) {
+        this.batteries = builder.batteries;
+        this.seed = builder.seed;
+        this.capacity = builder.capacity;
+        this.curve = builder.curve;
+        this.dischargePower = builder.dischargePower;
+        this.chargePower = builder.chargePower;
+        this.noise = builder.noise;
+        this.timeStep = builder.timeStep;
+        this.timeScale = builder.timeScale;
+        this.transitionsPerHour = builder.transitionsPerHour;
+        this.hotplugProbability = builder.hotplugProbability;
+        this.failureProbability = builder.failureProbability;
+    }
+
+    /**
+     * @return a builder for a single battery which never fails, with all other values at their defaults.
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    public int batteries() {
+        return this.batteries;
+    }
+
+    public long seed() {
+        return this.seed;
+    }
+
+    /**
+     * @return design capacity of each battery in watt-hours.
+     */
+    public float capacity() {
+        return this.capacity;
+    }
+
+    public @NotNull DischargeCurve curve() {
+        return this.curve;
+    }
+
+    /**
+     * @return average power drawn while discharging, in watts.
+     */
+    public float dischargePower() {
+        return this.dischargePower;
+    }
+
+    /**
+     * @return power supplied while charging in watts, before tapering off near full.
+     */
+    public float chargePower() {
+        return this.chargePower;
+    }
+
+    /**
+     * @return random variation of the power, relative to its average.
+     */
+    public float noise() {
+        return this.noise;
+    }
+
+    /**
+     * @return simulated time passing on each update, or null if the simulation follows the real clock.
+     */
+    public @Nullable Duration timeStep() {
+        return this.timeStep;
+    }
+
+    /**
+     * @return simulated seconds per real second, if the simulation follows the real clock.
+     */
+    public double timeScale() {
+        return this.timeScale;
+    }
+
+    /**
+     * @return how often a battery gets plugged in or unplugged per simulated hour, on average.
+     */
+    public double transitionsPerHour() {
+        return this.transitionsPerHour;
+    }
+
+    /**
+     * @return chance of each battery to disappear or reappear on each enumeration.
+     */
+    public double hotplugProbability() {
+        return this.hotplugProbability;
+    }
+
+    /**
+     * @return chance of each update to fail with an I/O error.
+     */
+    public double failureProbability() {
+        return this.failureProbability;
+    }
+
+    public static final class Builder {
+        private int batteries = 1;
+        private long seed = 0;
+        private float capacity = 50.0f;
+        private DischargeCurve curve = DischargeCurve.LITHIUM_ION;
+        private float dischargePower = 10.0f;
+        private float chargePower = 45.0f;
+        private float noise = 0.05f;
+        private @Nullable Duration timeStep = null;
+        private double timeScale = 1.0;
+        private double transitionsPerHour = 0.5;
+        private double hotplugProbability = 0.0;
+        private double failureProbability = 0.0;
+
+        private Builder() {
+        }
+
+        public @NotNull Builder batteries(int batteries) {
+            if (batteries < 0) {
+                throw new IllegalArgumentException("Battery count must not be negative.");
+            }
+
+            this.batteries = batteries;
+            return this;
+        }
+
+        public @NotNull Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public @NotNull Builder capacity(float wattHours) {
+            if (!(wattHours > 0.0f)) {
+                throw new IllegalArgumentException("Capacity must be positive.");
+            }
+
+            this.capacity = wattHours;
+            return this;
+        }
+
+        public @NotNull Builder curve(@NotNull DischargeCurve curve) {
+            this.curve = Objects.requireNonNull(curve);
+            return this;
+        }
+
+        public @NotNull Builder dischargePower(float watts) {
+            if (!(watts >= 0.0f)) {
+                throw new IllegalArgumentException("Discharge power must not be negative.");
+            }
+
+            this.dischargePower = watts;
+            return this;
+        }
+
+        public @NotNull Builder chargePower(float watts) {
+            if (!(watts >= 0.0f)) {
+                throw new IllegalArgumentException("Charge power must not be negative.");
+            }
+
+            this.chargePower = watts;
+            return this;
+        }
+
+        public @NotNull Builder noise(float noise) {
+            if (!(noise >= 0.0f && noise <= 1.0f)) {
+                throw new IllegalArgumentException("Noise must be between zero and one.");
+            }
+
+            this.noise = noise;
+            return this;
+        }
+
+        /**
+         * Advance simulated time by a fixed step on each update, instead of following the real clock.
+         */
+        public @NotNull Builder timeStep(@Nullable Duration step) {
+            if (step != null && (step.isNegative() || step.isZero())) {
+                throw new IllegalArgumentException("Time step must be positive.");
+            }
+
+            this.timeStep = step;
+            return this;
+        }
+
+        public @NotNull Builder timeScale(double scale) {
+            if (!(scale > 0.0)) {
+                throw new IllegalArgumentException("Time scale must be positive.");
+            }
+
+            this.timeScale = scale;
+            return this;
+        }
+
+        public @NotNull Builder transitionsPerHour(double rate) {
+            if (!(rate >= 0.0)) {
+                throw new IllegalArgumentException("Transition rate must not be negative.");
+            }
+
+            this.transitionsPerHour = rate;
+            return this;
+        }
+
+        public @NotNull Builder hotplugProbability(double probability) {
+            this.hotplugProbability = checkProbability(probability);
+            return this;
+        }
+
+        public @NotNull Builder failureProbability(double probability) {
+            this.failureProbability = checkProbability(probability);
+            return this;
+        }
+
+        public @NotNull Simulation build() {
+            return new Simulation(this);
+        }
+
+        private static double checkProbability(double probability) {
+            if (!(probability >= 0.0 && probability <= 1.0)) {
+                throw new IllegalArgumentException("Probability must be between zero and one.");
+            }
+
+            return probability;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.lostluma.battery.api.spi;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.exception.LibraryLoadError;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A source of battery information, selectable by name using {@link Manager#create(String)}.
+ * <p>
+ * Backends are discovered with {@link java.util.ServiceLoader}, additional backends can be registered
+ * in {@code META-INF/services/net.lostluma.battery.api.spi.Backend}.
+ * The built-in backends are {@code native}, {@code foreign} (Java 22 and newer), {@code sysfs} and {@code simulated}.
+ */
+public interface Backend {
+    /**
+     * @return the unique name of this backend.
+     */
+    @NotNull String name();
+
+    /**
+     * Checks whether the backend can be used on this system, without creating a manager.
+     *
+     * @return whether creating a manager may succeed.
+     */
+    boolean isSupported();
+
+    /**
+     * Tries to create a new manager backed by this backend.
+     *
+     * @return the new manager.
+     * @throws IOException creating the manager failed.
+     * @throws LibraryLoadError loading a native library required by the backend failed.
+     */
+    @NotNull Manager create() throws IOException, LibraryLoadError;
+}
@@ -1,8 +1,12 @@
 package net.lostluma.battery.api.util;
 
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.impl.util.LoadPhases;
 import net.lostluma.battery.impl.util.NativeUtil;
+import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Optional utilities to customize library installation.
@@ -26,4 +30,62 @@ public class LibraryUtil {
     public static void setAllowDownloads(boolean value) {
         NativeUtil.setAllowDownloads(value);
     }
+
+    /**
+     * Install and load the dynamic library in the background, including a warm-up.
+     *
+     * @return a future completing once the library is ready.
+     * @see #preloadAsync(boolean)
+     */
+    public static @NotNull CompletableFuture<PreloadResult> preloadAsync() {
+        return preloadAsync(true);
+    }
+
+    /**
+     * Install and load the dynamic library on a background thread.
+     * <p>
+     * Creating the first manager otherwise does this synchronously, on whichever thread first needs battery information.
+     * Calling {@link Manager#create()} while preloading is in progress is safe, it waits for the library instead of loading it twice.
+     *
+     * @param warmUp whether to also create a manager and look up batteries once.
+     * @return a future completing once the library is ready, or exceptionally if loading or warming up failed.
+     */
+    public static @NotNull CompletableFuture<PreloadResult> preloadAsync(boolean warmUp) {
+        CompletableFuture<PreloadResult> future = new CompletableFuture<>();
+
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(preload(warmUp));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, "Battery Preload");
+
+        thread.setDaemon(true);
+        thread.start();
+
+        return future;
+    }
+
+    private static PreloadResult preload(boolean warmUp) throws Exception {
+        LoadPhases phases = new LoadPhases();
+        NativeUtil.load(phases);
+
+        long managerCreation = 0;
+        long enumeration = 0;
+
+        if (warmUp) {
+            long start = System.nanoTime();
+
+            try (Manager manager = Manager.create()) {
+                managerCreation = System.nanoTime() - start;
+                start = System.nanoTime();
+
+                manager.batteries();
+                enumeration = System.nanoTime() - start;
+            }
+        }
+
+        return new PreloadResult(phases.metadata, phases.validation, phases.installation, phases.linking, managerCreation, enumeration);
+    }
 }
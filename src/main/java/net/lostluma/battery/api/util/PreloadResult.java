@@ -0,0 +1,81 @@
+package net.lostluma.battery.api.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * Time spent in each phase of preloading the library.
+ * <p>
+ * Phases which were skipped, for example because the library was loaded already, have a duration of zero.
+ *
+ * @see LibraryUtil#preloadAsync(boolean)
+ */
+public final class PreloadResult {
+    private final Duration metadata;
+    private final Duration validation;
+    private final Duration installation;
+    private final Duration linking;
+    private final Duration managerCreation;
+    private final Duration enumeration;
+
+    @ApiStatus.Internal
+    public PreloadResult(long metadata, long validation, long installation, long linking, long managerCreation, long enumeration) {
+        this.metadata = Duration.ofNanos(metadata);
+        this.validation = Duration.ofNanos(validation);
+        this.installation = Duration.ofNanos(installation);
+        this.linking = Duration.ofNanos(linking);
+        this.managerCreation = Duration.ofNanos(managerCreation);
+        this.enumeration = Duration.ofNanos(enumeration);
+    }
+
+    /**
+     * @return time spent reading the bundled library metadata.
+     */
+    public @NotNull Duration metadata() {
+        return this.metadata;
+    }
+
+    /**
+     * @return time spent validating the cached library.
+     */
+    public @NotNull Duration validation() {
+        return this.validation;
+    }
+
+    /**
+     * @return time spent extracting or downloading the library.
+     */
+    public @NotNull Duration installation() {
+        return this.installation;
+    }
+
+    /**
+     * @return time spent loading the library into the JVM.
+     */
+    public @NotNull Duration linking() {
+        return this.linking;
+    }
+
+    /**
+     * @return time spent creating the warm-up manager.
+     */
+    public @NotNull Duration managerCreation() {
+        return this.managerCreation;
+    }
+
+    /**
+     * @return time spent looking up batteries with the warm-up manager.
+     */
+    public @NotNull Duration enumeration() {
+        return this.enumeration;
+    }
+
+    /**
+     * @return the total time spent in all phases.
+     */
+    public @NotNull Duration total() {
+        return this.metadata.plus(this.validation).plus(this.installation).plus(this.linking).plus(this.managerCreation).plus(this.enumeration);
+    }
+}
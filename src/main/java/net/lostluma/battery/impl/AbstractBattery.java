@@ -0,0 +1,331 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.impl.instrument.Probes;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Base for battery implementations, which serves all information from the most recently published snapshot.
+ */
+@ApiStatus.Internal
+public abstract class AbstractBattery implements Battery {
+    private static final AtomicLong IDS = new AtomicLong();
+
+    // The manager which created this battery
+    final AbstractManager<?> owner;
+
+    // Creation order, in which bulk refreshes lock batteries
+    final long id;
+
+    // Identifies the physical battery, stays the same across enumerations
+    protected final String key;
+    private volatile boolean present;
+
+    private final Technology technology;
+    private final @Nullable String vendor;
+    private final @Nullable String model;
+    private final @Nullable String serialNumber;
+
+    // Serializes refreshes, implementations must hold it while updating
+    protected final ReentrantLock lock;
+
+    private long sequence;
+    private volatile BatterySnapshot snapshot;
+
+    // Queued asynchronous update, which further callers join
+    private final AtomicReference<CompletableFuture<BatterySnapshot>> pendingUpdate;
+
+    // Copied on write, so publishing iterates without allocating
+    private volatile Consumer<BatterySnapshot>[] listeners = newListeners(0);
+
+    protected AbstractBattery(AbstractManager<?> owner, String key, Technology technology, @Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+        this.owner = owner;
+        this.id = IDS.getAndIncrement();
+
+        this.key = key;
+        this.present = true;
+
+        this.technology = technology;
+        this.vendor = vendor;
+        this.model = model;
+        this.serialNumber = serialNumber;
+
+        this.lock = new ReentrantLock();
+        this.pendingUpdate = new AtomicReference<>();
+    }
+
+    // Must be called while holding the lock, or before the battery is shared
+    protected final void publish(float stateOfCharge, float energy, float energyFull, float energyFullDesign, float energyRate, float voltage, float stateOfHealth, State state, float temperature, long cycleCount, float timeToFull, float timeToEmpty) {
+        this.sequence ++;
+
+        this.snapshot = new BatterySnapshot(
+            this.sequence,
+            System.nanoTime(),
+            stateOfCharge,
+            energy,
+            energyFull,
+            energyFullDesign,
+            energyRate,
+            voltage,
+            stateOfHealth,
+            state,
+            this.technology,
+            temperature,
+            cycleCount,
+            timeToFull,
+            timeToEmpty
+        );
+
+        for (Consumer<BatterySnapshot> listener : this.listeners) {
+            try {
+                listener.accept(this.snapshot);
+            } catch (RuntimeException e) {
+                // A faulty listener must neither fail the update nor keep other listeners from being notified
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    /**
+     * @return the key identifying the physical battery, unique among the batteries of its manager.
+     */
+    public String key() {
+        return this.key;
+    }
+
+    @Override
+    public @NotNull BatterySnapshot snapshot() {
+        return this.snapshot;
+    }
+
+    @Override
+    public synchronized void addUpdateListener(@NotNull Consumer<BatterySnapshot> listener) {
+        Consumer<BatterySnapshot>[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+
+        this.listeners = listeners;
+    }
+
+    @Override
+    public synchronized void removeUpdateListener(@NotNull Consumer<BatterySnapshot> listener) {
+        this.listeners = Arrays.stream(this.listeners).filter(value -> value != listener).toArray(AbstractBattery::newListeners);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<BatterySnapshot>[] newListeners(int size) {
+        return (Consumer<BatterySnapshot>[]) new Consumer<?>[size];
+    }
+
+    @Override
+    public final void update(@NotNull Duration maxAge) throws IOException, RuntimeException {
+        long requested = System.nanoTime();
+        long age = maxAge.getSeconds() >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : maxAge.toNanos();
+
+        if (requested - this.snapshot.timestamp() <= age) {
+            Probes.cacheHit();
+            return;
+        }
+
+        this.lock.lock();
+
+        try {
+            // Refreshed by another thread while waiting for the lock
+            if (this.snapshot.timestamp() - requested >= 0) {
+                Probes.cacheCoalesced();
+                return;
+            }
+
+            Probes.cacheMiss();
+            this.update();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public final @NotNull CompletableFuture<BatterySnapshot> updateAsync() {
+        return this.owner.async.submit(this.pendingUpdate, () -> {
+            this.update();
+            return this.snapshot;
+        });
+    }
+
+    /**
+     * Marks the start of a call, which closing the manager waits for.
+     *
+     * @throws IllegalStateException the manager is already closed.
+     */
+    protected final void enter() {
+        if (!this.owner.guard.enter()) {
+            throw new IllegalStateException("Attached manager is closed.");
+        }
+    }
+
+    /**
+     * Marks the end of a call started with {@link #enter()}.
+     */
+    protected final void exit() {
+        this.owner.guard.exit();
+    }
+
+    @Override
+    public boolean isPresent() {
+        return this.present;
+    }
+
+    // Called once the battery no longer shows up when enumerating
+    protected final void markRemoved() {
+        this.present = false;
+    }
+
+    @Override
+    public final boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other == null || this.getClass() != other.getClass()) {
+            return false;
+        } else {
+            return this.key.equals(((AbstractBattery) other).key);
+        }
+    }
+
+    @Override
+    public final int hashCode() {
+        return this.key.hashCode();
+    }
+
+    @Override
+    public float stateOfCharge() {
+        return this.snapshot.stateOfCharge();
+    }
+
+    @Override
+    public float energy() {
+        return this.snapshot.energy();
+    }
+
+    @Override
+    public float energyFull() {
+        return this.snapshot.energyFull();
+    }
+
+    @Override
+    public float energyFullDesign() {
+        return this.snapshot.energyFullDesign();
+    }
+
+    @Override
+    public float energyRate() {
+        return this.snapshot.energyRate();
+    }
+
+    @Override
+    public float voltage() {
+        return this.snapshot.voltage();
+    }
+
+    @Override
+    public float stateOfHealth() {
+        return this.snapshot.stateOfHealth();
+    }
+
+    @Override
+    public @NotNull State state() {
+        return this.snapshot.state();
+    }
+
+    @Override
+    public @NotNull Technology technology() {
+        return this.technology;
+    }
+
+    @Override
+    public @NotNull Optional<Float> temperature() {
+        float value = this.snapshot.temperatureCelsiusOrNaN();
+
+        if (Float.isNaN(value)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(value);
+        }
+    }
+
+    @Override
+    public @NotNull OptionalLong cycleCount() {
+        long value = this.snapshot.cycleCountOrMin();
+
+        if (value == Long.MIN_VALUE) {
+            return OptionalLong.empty();
+        } else {
+            return OptionalLong.of(value);
+        }
+    }
+
+    @Override
+    public @NotNull Optional<String> vendor() {
+        if (Objects.isNull(this.vendor)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(this.vendor);
+        }
+    }
+
+    @Override
+    public @NotNull Optional<String> model() {
+        if (Objects.isNull(this.model)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(this.model);
+        }
+    }
+
+    @Override
+    public @NotNull Optional<String> serialNumber() {
+        if (Objects.isNull(this.serialNumber)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(this.serialNumber);
+        }
+    }
+
+    @Override
+    public @NotNull Optional<Duration> timeToFull() {
+        float value = this.snapshot.timeToFullSeconds();
+
+        if (Float.isNaN(value)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(Duration.of((long) value, ChronoUnit.SECONDS));
+        }
+    }
+
+    @Override
+    public @NotNull Optional<Duration> timeToEmpty() {
+        float value = this.snapshot.timeToEmptySeconds();
+
+        if (Float.isNaN(value)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(Duration.of((long) value, ChronoUnit.SECONDS));
+        }
+    }
+}
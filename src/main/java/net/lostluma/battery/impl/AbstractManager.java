@@ -0,0 +1,189 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.RefreshResult;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base for manager implementations, which handles closing, asynchronous calls, and locking for bulk refreshes.
+ *
+ * @param <B> the type of batteries created by this manager.
+ */
+@ApiStatus.Internal
+public abstract class AbstractManager<B extends AbstractBattery> implements Manager {
+    private final Class<B> type;
+
+    // Keeps the manager open while any thread is using it
+    final CallGuard guard;
+
+    // Runs asynchronous calls, so they don't block the caller's thread
+    final AsyncExecutor async;
+    private final AtomicReference<CompletableFuture<Collection<Battery>>> pendingBatteries;
+
+    protected AbstractManager(Class<B> type) {
+        this.type = type;
+        this.guard = new CallGuard();
+
+        this.async = new AsyncExecutor();
+        this.pendingBatteries = new AtomicReference<>();
+    }
+
+    /**
+     * Looks up the current batteries, reusing instances of batteries which were found before.
+     */
+    protected abstract @NotNull Collection<Battery> enumerate() throws IOException;
+
+    /**
+     * Refreshes and publishes batteries, which are all present and locked by the calling thread.
+     * <p>
+     * By default, every battery is updated individually.
+     *
+     * @return the reason each battery could not be refreshed, or {@code null} for those which were.
+     */
+    protected @NotNull IOException[] refresh(B[] batteries) throws IOException {
+        IOException[] errors = new IOException[batteries.length];
+
+        for (int index = 0; index < batteries.length; index++) {
+            try {
+                batteries[index].update();
+            } catch (IOException e) {
+                errors[index] = e;
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Frees all resources of the manager, once no call is in progress anymore.
+     */
+    protected abstract void free();
+
+    /**
+     * Marks the start of a call, which closing the manager waits for.
+     *
+     * @throws IllegalStateException the manager is already closed.
+     */
+    protected final void enter() {
+        if (!this.guard.enter()) {
+            throw new IllegalStateException("Manager can not be used after being closed!");
+        }
+    }
+
+    /**
+     * Marks the end of a call started with {@link #enter()}.
+     */
+    protected final void exit() {
+        this.guard.exit();
+    }
+
+    @Override
+    public final @NotNull Collection<Battery> batteries() throws IOException, RuntimeException {
+        this.enter();
+
+        try {
+            return this.enumerate();
+        } finally {
+            this.exit();
+        }
+    }
+
+    @Override
+    public final @NotNull CompletableFuture<Collection<Battery>> batteriesAsync() {
+        return this.async.submit(this.pendingBatteries, this::batteries);
+    }
+
+    @Override
+    public final @NotNull RefreshResult refreshAll(@NotNull Collection<Battery> batteries) throws IOException, RuntimeException {
+        int index = 0;
+        B[] array = this.newArray(batteries.size());
+
+        for (Battery battery : batteries) {
+            if (!this.type.isInstance(battery) || ((AbstractBattery) battery).owner != this) {
+                throw new IllegalArgumentException("Battery was not created by this manager.");
+            }
+
+            array[index] = this.type.cast(battery);
+            index ++;
+        }
+
+        this.enter();
+
+        // Lock in a consistent order so concurrent bulk refreshes can't deadlock
+        B[] ordered = array.clone();
+        Arrays.sort(ordered, Comparator.comparingLong(battery -> battery.id));
+
+        int locked = 0;
+
+        try {
+            for (B battery : ordered) {
+                battery.lock.lock();
+                locked ++;
+            }
+
+            // Batteries which are gone can't be refreshed anymore, so only present ones are passed on
+            int count = 0;
+            B[] present = this.newArray(array.length);
+
+            for (B battery : array) {
+                if (battery.isPresent()) {
+                    present[count] = battery;
+                    count ++;
+                }
+            }
+
+            IOException[] errors = count > 0 ? this.refresh(Arrays.copyOf(present, count)) : new IOException[0];
+            Map<Battery, IOException> failures = new LinkedHashMap<>();
+
+            int position = 0;
+
+            for (B battery : array) {
+                if (position < count && present[position] == battery) {
+                    if (errors[position] != null) {
+                        failures.put(battery, errors[position]);
+                    }
+
+                    position ++;
+                } else {
+                    failures.put(battery, new IOException("Battery is no longer present."));
+                }
+            }
+
+            return new RefreshResult(array.length - failures.size(), failures);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered[i].lock.unlock();
+            }
+
+            this.exit();
+        }
+    }
+
+    @Override
+    public final void close() {
+        // Waits for all calls in progress, so nothing uses the freed resources anymore
+        if (!this.guard.close()) {
+            return;
+        }
+
+        this.async.shutdown();
+        this.free();
+    }
+
+    @SuppressWarnings("unchecked")
+    private B[] newArray(int size) {
+        return (B[]) Array.newInstance(this.type, size);
+    }
+}
@@ -0,0 +1,120 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.PowerSummary;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.api.State;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Sums of battery values, as computed by the native library or by managers without native support.
+ * <p>
+ * Must be kept in sync with the {@code Summary} struct in {@code lib.rs}.
+ */
+@ApiStatus.Internal
+public final class Aggregate {
+    static final int BATTERIES = 0;
+    static final int ENERGY = 1;
+    static final int ENERGY_FULL = 2;
+    static final int ENERGY_FULL_DESIGN = 3;
+    static final int CHARGING_RATE = 4;
+    static final int DISCHARGING_RATE = 5;
+    static final int STATES = 6; // Bit mask of state ordinals
+
+    static final int SIZE = 7;
+
+    private static final float SECONDS_PER_HOUR = 3600.0f;
+
+    private Aggregate() {
+    }
+
+    /**
+     * Summarizes all batteries of a manager by refreshing them individually.
+     */
+    public static PowerSummary of(Manager manager) throws IOException {
+        Collection<Battery> batteries = manager.batteries();
+        RefreshResult result = manager.refreshAll(batteries);
+
+        float[] values = new float[SIZE];
+
+        for (Battery battery : batteries) {
+            if (!result.failures().containsKey(battery)) {
+                add(values, battery.snapshot());
+            }
+        }
+
+        return summarize(values);
+    }
+
+    private static void add(float[] values, BatterySnapshot snapshot) {
+        values[BATTERIES] += 1.0f;
+        values[ENERGY] += snapshot.energy();
+        values[ENERGY_FULL] += snapshot.energyFull();
+        values[ENERGY_FULL_DESIGN] += snapshot.energyFullDesign();
+
+        if (snapshot.state() == State.CHARGING) {
+            values[CHARGING_RATE] += snapshot.energyRate();
+        } else if (snapshot.state() == State.DISCHARGING) {
+            values[DISCHARGING_RATE] += snapshot.energyRate();
+        }
+
+        values[STATES] = (int) values[STATES] | 1 << snapshot.state().ordinal();
+    }
+
+    static PowerSummary summarize(float[] values) {
+        float energy = values[ENERGY];
+        float energyFull = values[ENERGY_FULL];
+
+        // Net power into the batteries, negative while discharging
+        float rate = values[CHARGING_RATE] - values[DISCHARGING_RATE];
+
+        State state = state((int) values[STATES], rate);
+        float stateOfCharge = energyFull > 0.0f ? energy / energyFull * 100.0f : 0.0f;
+
+        float timeToFull = Float.NaN;
+        float timeToEmpty = Float.NaN;
+
+        if (state == State.CHARGING && rate > 0.0f) {
+            timeToFull = Math.max(energyFull - energy, 0.0f) / rate * SECONDS_PER_HOUR;
+        } else if (state == State.DISCHARGING && rate < 0.0f) {
+            timeToEmpty = energy / -rate * SECONDS_PER_HOUR;
+        }
+
+        return new PowerSummary((int) values[BATTERIES], stateOfCharge, energy, energyFull, values[ENERGY_FULL_DESIGN], Math.abs(rate), state, timeToFull, timeToEmpty);
+    }
+
+    private static State state(int states, float rate) {
+        boolean charging = has(states, State.CHARGING);
+        boolean discharging = has(states, State.DISCHARGING);
+
+        // The net rate decides, so the state always matches the direction energy flows in
+        if ((charging || discharging) && rate > 0.0f) {
+            return State.CHARGING;
+        } else if ((charging || discharging) && rate < 0.0f) {
+            return State.DISCHARGING;
+        } else if (charging) {
+            return State.CHARGING; // Rates are not reported, or cancel out exactly
+        } else if (discharging) {
+            return State.DISCHARGING;
+        } else if (states == bit(State.FULL)) {
+            return State.FULL;
+        } else if (states == bit(State.EMPTY)) {
+            return State.EMPTY;
+        } else {
+            return State.UNKNOWN;
+        }
+    }
+
+    private static boolean has(int states, State state) {
+        return (states & bit(state)) != 0;
+    }
+
+    private static int bit(State state) {
+        return 1 << state.ordinal();
+    }
+}
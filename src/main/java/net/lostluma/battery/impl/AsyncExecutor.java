@@ -0,0 +1,88 @@
+package net.lostluma.battery.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs blocking manager and battery calls on a small pool of platform threads.
+ * <p>
+ * Callers on virtual threads can wait for the returned futures without pinning their carrier thread,
+ * as the native call itself happens on one of these threads instead.
+ */
+@ApiStatus.Internal
+public final class AsyncExecutor {
+    private static final int THREADS = 2;
+    private static final int QUEUE_SIZE = 64;
+
+    private final ThreadPoolExecutor executor;
+
+    public AsyncExecutor() {
+        // Threads are only started on demand, and exit again after idling for a while
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+            Thread thread = new Thread(runnable, "Battery Async");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules a task, unless an equivalent task is already queued.
+     * <p>
+     * While a task is queued, further submissions using the same slot receive its future instead.
+     * Once it starts running, the slot is cleared again, so later callers always observe a result
+     * produced after their call.
+     *
+     * @param slot holds the future of the queued task, if any.
+     * @param task the task to run.
+     * @return a future completed with the task's result, or exceptionally if the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(AtomicReference<CompletableFuture<T>> slot, Callable<T> task) {
+        while (true) {
+            CompletableFuture<T> queued = slot.get();
+
+            if (queued != null) {
+                return queued;
+            }
+
+            CompletableFuture<T> future = new CompletableFuture<>();
+
+            if (!slot.compareAndSet(null, future)) {
+                continue;
+            }
+
+            try {
+                this.executor.execute(() -> {
+                    slot.compareAndSet(future, null);
+
+                    try {
+                        future.complete(task.call());
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Back-pressure, the caller has to retry later instead of queueing unboundedly
+                slot.compareAndSet(future, null);
+                future.completeExceptionally(e);
+            }
+
+            return future;
+        }
+    }
+
+    /**
+     * Stops accepting tasks. Queued tasks still run, and fail if their manager is closed.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+}
@@ -1,203 +1,81 @@
 package net.lostluma.battery.impl;
 
-import net.lostluma.battery.api.Battery;
-import net.lostluma.battery.api.State;
 import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.api.metrics.Operation;
+import net.lostluma.battery.impl.instrument.Events;
+import net.lostluma.battery.impl.instrument.Probes;
 import org.jetbrains.annotations.ApiStatus;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.OptionalLong;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 @ApiStatus.Internal
-public final class BatteryImpl implements Battery {
+public final class BatteryImpl extends AbstractBattery {
     final long ptr;
-    private final ManagerImpl manager;
-
-    private final Technology technology;
-    private final @Nullable String vendor;
-    private final @Nullable String model;
-    private final @Nullable String serialNumber;
-
-    private float stateOfCharge;
-    private float energy;
-    private float energyFull;
-    private float energyFullDesign;
-    private float energyRate;
-    private float voltage;
-    private float stateOfHealth;
-    private State state;
-    private float temperature = Float.NaN;
-    private long cycleCount = Long.MIN_VALUE;
-    private @Nullable Duration timeToFull;
-    private @Nullable Duration timeToEmpty;
+    final ManagerImpl manager;
+
+    // Readings are written into this buffer by the native library
+    private final ByteBuffer buffer;
 
     // Constructor for native library
-    private BatteryImpl(long ptr, ManagerImpl manager, Technology technology, @Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+    private BatteryImpl(long ptr, ManagerImpl manager, String key, Technology technology, @Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+        super(manager, key, technology, vendor, model, serialNumber);
+
         this.ptr = ptr;
         this.manager = manager;
 
-        this.technology = technology;
-        this.vendor = vendor;
-        this.model = model;
-        this.serialNumber = serialNumber;
+        this.buffer = ByteBuffer.allocateDirect(Reading.SIZE).order(ByteOrder.nativeOrder());
     }
 
     @Override
     public void update() throws IOException, RuntimeException {
-        if (this.manager.isActive()) {
-            this.update0();
-        } else {
-            throw new RuntimeException("Attached manager is closed.");
-        }
-    }
-
-    private native void update0() throws IOException;
-
-    // Allows native library to update all fields at once
-    private void update0(float stateOfCharge, float energy, float energyFull, float energyRate, float energyFullDesign, float voltage, float stateOfHealth, State state, float temperature, long cycleCount, float timeToFull, float timeToEmpty) {
-        this.stateOfCharge = stateOfCharge;
-        this.energy = energy;
-        this.energyFull = energyFull;
-        this.energyRate = energyRate;
-        this.energyFullDesign = energyFullDesign;
-        this.voltage = voltage;
-        this.stateOfHealth = stateOfHealth;
-        this.state = state;
-        this.temperature = temperature;
-        this.cycleCount = cycleCount;
-
-        if (Float.isNaN(timeToFull)) {
-            this.timeToFull = null;
-        } else {
-            this.timeToFull = Duration.of((long) timeToFull, ChronoUnit.SECONDS);
-        }
-
-        if (Float.isNaN(timeToEmpty)) {
-            this.timeToEmpty = null;
-        } else {
-            this.timeToEmpty = Duration.of((long) timeToEmpty, ChronoUnit.SECONDS);
-        }
-    }
-
-    @Override
-    public float stateOfCharge() {
-        return this.stateOfCharge;
-    }
-
-    @Override
-    public float energy() {
-        return this.energy;
-    }
-
-    @Override
-    public float energyFull() {
-        return this.energyFull;
-    }
-
-    @Override
-    public float energyFullDesign() {
-        return this.energyFullDesign;
-    }
-
-    @Override
-    public float energyRate() {
-        return this.energyRate;
-    }
-
-    @Override
-    public float voltage() {
-        return this.voltage;
-    }
-
-    @Override
-    public float stateOfHealth() {
-        return this.stateOfHealth;
-    }
-
-    @Override
-    public @NotNull State state() {
-        return this.state;
-    }
-
-    @Override
-    public @NotNull Technology technology() {
-        return this.technology;
-    }
+        this.enter();
 
-    @Override
-    public @NotNull Optional<Float> temperature() {
-        float value = this.temperature;
-
-        if (Float.isNaN(value)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(value);
-        }
-    }
+        this.lock.lock();
 
-    @Override
-    public @NotNull OptionalLong cycleCount() {
-        long value = this.cycleCount;
+        long start = Probes.start();
+        Object event = Events.begin(Operation.UPDATE);
+        boolean failed = true;
 
-        if (value == Integer.MIN_VALUE) {
-            return OptionalLong.empty();
-        } else {
-            return OptionalLong.of(value);
-        }
-    }
+        try {
+            if (!this.isPresent()) {
+                throw new IOException("Battery is no longer present.");
+            }
 
-    @Override
-    public @NotNull Optional<String> vendor() {
-        if (Objects.isNull(this.vendor)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(this.vendor);
-        }
-    }
-
-    @Override
-    public @NotNull Optional<String> model() {
-        if (Objects.isNull(this.model)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(this.model);
-        }
-    }
-
-    @Override
-    public @NotNull Optional<String> serialNumber() {
-        if (Objects.isNull(this.serialNumber)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(this.serialNumber);
-        }
-    }
+            this.update0();
+            this.publish();
 
-    @Override
-    public @NotNull Optional<Duration> timeToFull() {
-        Duration value = this.timeToFull;
+            failed = false;
+        } finally {
+            Events.commit(event, 1, failed ? 1 : 0);
+            Probes.stop(Operation.UPDATE, start, failed);
 
-        if (Objects.isNull(value)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(value);
+            this.lock.unlock();
+            this.exit();
         }
     }
 
-    @Override
-    public @NotNull Optional<Duration> timeToEmpty() {
-        Duration value = this.timeToEmpty;
+    private native void update0() throws IOException;
 
-        if (Objects.isNull(value)) {
-            return Optional.empty();
-        } else {
-            return Optional.of(value);
-        }
+    // Captures the reading most recently written by the native library
+    void publish() {
+        ByteBuffer buffer = this.buffer;
+
+        this.publish(
+            buffer.getFloat(Reading.STATE_OF_CHARGE),
+            buffer.getFloat(Reading.ENERGY),
+            buffer.getFloat(Reading.ENERGY_FULL),
+            buffer.getFloat(Reading.ENERGY_FULL_DESIGN),
+            buffer.getFloat(Reading.ENERGY_RATE),
+            buffer.getFloat(Reading.VOLTAGE),
+            buffer.getFloat(Reading.STATE_OF_HEALTH),
+            Reading.STATES[buffer.getInt(Reading.STATE)],
+            buffer.getFloat(Reading.TEMPERATURE),
+            buffer.getLong(Reading.CYCLE_COUNT),
+            buffer.getFloat(Reading.TIME_TO_FULL),
+            buffer.getFloat(Reading.TIME_TO_EMPTY)
+        );
     }
 }
@@ -0,0 +1,58 @@
+package net.lostluma.battery.impl;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns keys to the batteries found by an enumeration of the native library.
+ * <p>
+ * Must match {@code identity} and {@code assign_keys} in {@code lib.rs}, so both native backends identify batteries the same way.
+ */
+final class BatteryKeys {
+    private BatteryKeys() {
+    }
+
+    // Identifies a battery by its serial number, or its vendor and model if it has none
+    static String identity(@Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+        if (serialNumber != null && !serialNumber.trim().isEmpty()) {
+            return serialNumber.trim();
+        } else {
+            return (vendor == null ? "" : vendor) + "/" + (model == null ? "" : model);
+        }
+    }
+
+    /**
+     * Turns identities into keys, which are unique among the batteries of one enumeration.
+     * <p>
+     * Batteries sharing an identity are told apart by their position, which changes once one of them is removed.
+     * Their keys are therefore marked as not unique, and must never be matched against batteries found before.
+     *
+     * @param keys the identity of every battery, which is replaced by its key.
+     * @return whether each key is unique.
+     */
+    static boolean[] assign(String[] keys) {
+        Map<String, Integer> occurrences = new HashMap<>();
+
+        for (String identity : keys) {
+            occurrences.merge(identity, 1, Integer::sum);
+        }
+
+        boolean[] unique = new boolean[keys.length];
+        Map<String, Integer> positions = new HashMap<>();
+
+        for (int index = 0; index < keys.length; index++) {
+            String identity = keys[index];
+
+            if (occurrences.get(identity) == 1) {
+                unique[index] = true;
+            } else {
+                int position = positions.merge(identity, 1, Integer::sum) - 1;
+                keys[index] = identity + "#" + position;
+            }
+        }
+
+        return unique;
+    }
+}
@@ -0,0 +1,304 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatteryListener;
+import net.lostluma.battery.api.BatteryMonitor;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.State;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+@ApiStatus.Internal
+public final class BatteryMonitorImpl implements BatteryMonitor {
+    private static final double SECONDS_PER_HOUR = 3600.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Manager manager;
+    private final long minInterval;
+    private final long maxInterval;
+    private final float threshold;
+
+    private final AtomicBoolean started;
+    private final ScheduledExecutorService executor;
+    private final List<BatteryListener> listeners;
+
+    // Batteries being polled, only accessed on the scheduler thread once started
+    private final Map<Battery, Task> tasks;
+
+    public BatteryMonitorImpl(Manager manager, Duration minInterval, Duration maxInterval, float threshold) {
+        if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("Intervals must be positive, and the maximum must not be smaller than the minimum.");
+        }
+
+        if (!(threshold >= 0.0f)) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+
+        this.manager = manager;
+        this.minInterval = minInterval.toNanos();
+        this.maxInterval = maxInterval.toNanos();
+        this.threshold = threshold;
+
+        this.started = new AtomicBoolean();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.tasks = new HashMap<>();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Battery Monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void addListener(@NotNull BatteryListener listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(@NotNull BatteryListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void start() throws IOException, IllegalStateException {
+        if (this.executor.isShutdown() || !this.started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Monitor was already started or closed.");
+        }
+
+        Collection<Battery> batteries = this.manager.batteries();
+
+        // Tracked batteries are only ever touched on the scheduler thread
+        this.schedule(() -> {
+            this.track(batteries);
+            this.schedule(this::rescan, this.maxInterval);
+        }, 0);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    // Looks up batteries periodically, so added ones are polled and removed ones are dropped
+    private void rescan() {
+        if (this.enumerate()) {
+            this.schedule(this::rescan, this.maxInterval);
+        }
+    }
+
+    // Returns whether the manager can still be used
+    private boolean enumerate() {
+        try {
+            this.track(this.manager.batteries());
+        } catch (IOException e) {
+            this.notify(listener -> listener.onEnumerationError(e));
+        } catch (IllegalStateException e) {
+            // The manager can no longer be used, e.g. because it was closed
+            IOException error = new IOException("Batteries can no longer be looked up, monitoring stopped.", e);
+            this.notify(listener -> listener.onEnumerationError(error));
+
+            return false;
+        } catch (RuntimeException e) {
+            report(e); // Unexpected, but not worth to stop monitoring for
+        }
+
+        return true;
+    }
+
+    private void track(Collection<Battery> batteries) {
+        Set<Battery> current = new HashSet<>(batteries);
+        Iterator<Map.Entry<Battery, Task>> iterator = this.tasks.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Battery, Task> entry = iterator.next();
+
+            if (!current.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+
+        for (Battery battery : batteries) {
+            if (!this.tasks.containsKey(battery)) {
+                Task task = new Task(battery);
+
+                this.tasks.put(battery, task);
+                task.schedule(this.nextInterval(null, task.reported));
+            }
+        }
+    }
+
+    // A faulty listener must neither stop polling nor keep other listeners from being notified
+    private void notify(Consumer<BatteryListener> action) {
+        for (BatteryListener listener : this.listeners) {
+            try {
+                action.accept(listener);
+            } catch (RuntimeException e) {
+                report(e);
+            }
+        }
+    }
+
+    private static void report(RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private @Nullable ScheduledFuture<?> schedule(Runnable runnable, long delay) {
+        try {
+            return this.executor.schedule(runnable, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            return null; // The monitor was closed
+        }
+    }
+
+    private long nextInterval(BatterySnapshot previous, BatterySnapshot current) {
+        double interval = this.maxInterval;
+        State state = current.state();
+
+        if (state == State.CHARGING || state == State.DISCHARGING) {
+            float rate = Math.abs(current.energyRate());
+            float energy = current.energy();
+
+            // Time until the energy changes by the threshold at the current rate
+            if (rate > 0.0f && energy > 0.0f) {
+                double seconds = this.threshold * energy / rate * SECONDS_PER_HOUR;
+                interval = Math.min(interval, seconds * NANOS_PER_SECOND);
+            }
+
+            // Same estimate, but using the change observed since the previous update
+            if (previous != null) {
+                float change = Math.abs(current.stateOfCharge() - previous.stateOfCharge());
+                long elapsed = current.timestamp() - previous.timestamp();
+
+                if (change > 0.0f && elapsed > 0) {
+                    double target = this.threshold * Math.max(current.stateOfCharge(), 1.0f);
+                    interval = Math.min(interval, target / change * elapsed);
+                }
+            }
+        }
+
+        return Math.max(this.minInterval, (long) interval);
+    }
+
+    private boolean hasChanged(BatterySnapshot previous, BatterySnapshot current) {
+        return previous.state() != current.state()
+            || previous.technology() != current.technology()
+            || previous.cycleCountOrMin() != current.cycleCountOrMin()
+            || this.exceeds(previous.stateOfCharge(), current.stateOfCharge())
+            || this.exceeds(previous.energy(), current.energy())
+            || this.exceeds(previous.energyFull(), current.energyFull())
+            || this.exceeds(previous.energyFullDesign(), current.energyFullDesign())
+            || this.exceeds(previous.energyRate(), current.energyRate())
+            || this.exceeds(previous.voltage(), current.voltage())
+            || this.exceeds(previous.stateOfHealth(), current.stateOfHealth())
+            || this.exceeds(previous.temperatureCelsiusOrNaN(), current.temperatureCelsiusOrNaN())
+            || this.exceeds(previous.timeToFullSeconds(), current.timeToFullSeconds())
+            || this.exceeds(previous.timeToEmptySeconds(), current.timeToEmptySeconds());
+    }
+
+    private boolean exceeds(float previous, float current) {
+        boolean missing = Float.isNaN(previous);
+
+        if (missing || Float.isNaN(current)) {
+            return missing != Float.isNaN(current);
+        }
+
+        float base = Math.max(Math.abs(previous), Math.abs(current));
+        return Math.abs(current - previous) > this.threshold * base;
+    }
+
+    private final class Task implements Runnable {
+        private final Battery battery;
+
+        // Last snapshot listeners were notified about, and the one from the previous update
+        private BatterySnapshot reported;
+        private BatterySnapshot previous;
+
+        private @Nullable ScheduledFuture<?> future;
+
+        private Task(Battery battery) {
+            this.battery = battery;
+            this.reported = battery.snapshot();
+        }
+
+        @Override
+        public void run() {
+            BatteryMonitorImpl monitor = BatteryMonitorImpl.this;
+
+            if (monitor.tasks.get(this.battery) != this) {
+                return; // Dropped while already queued
+            }
+
+            try {
+                this.battery.update();
+            } catch (IOException e) {
+                // The battery may have been removed, which is not worth reporting
+                if (monitor.enumerate() && monitor.tasks.get(this.battery) != this) {
+                    return;
+                }
+
+                this.schedule(monitor.maxInterval);
+                monitor.notify(listener -> listener.onError(this.battery, e));
+
+                return;
+            } catch (IllegalStateException e) {
+                // The manager can no longer be used, e.g. because it was closed
+                IOException error = new IOException("Battery can no longer be updated, monitoring stopped.", e);
+                monitor.tasks.remove(this.battery);
+
+                monitor.notify(listener -> listener.onError(this.battery, error));
+                return;
+            } catch (RuntimeException e) {
+                // Thrown by the battery implementation, keep polling as after any other failed update
+                this.schedule(monitor.maxInterval);
+                report(e);
+
+                return;
+            }
+
+            BatterySnapshot current = this.battery.snapshot();
+
+            this.schedule(monitor.nextInterval(this.previous, current));
+            this.previous = current;
+
+            if (monitor.hasChanged(this.reported, current)) {
+                BatterySnapshot reported = this.reported;
+                this.reported = current;
+
+                monitor.notify(listener -> listener.onChange(this.battery, reported, current));
+            }
+        }
+
+        private void schedule(long delay) {
+            this.future = BatteryMonitorImpl.this.schedule(this, delay);
+        }
+
+        private void cancel() {
+            if (this.future != null) {
+                this.future.cancel(false);
+            }
+        }
+    }
+}
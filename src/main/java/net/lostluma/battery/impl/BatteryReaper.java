@@ -0,0 +1,63 @@
+package net.lostluma.battery.impl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * Frees native battery memory once the owning {@link BatteryImpl} is garbage collected.
+ * <p>
+ * A single daemon thread is shared by all managers, and started once the first battery is registered.
+ */
+final class BatteryReaper {
+    private static final ReferenceQueue<BatteryImpl> QUEUE = new ReferenceQueue<>();
+    private static volatile boolean started = false;
+
+    static Handle register(BatteryImpl battery) {
+        if (!started) {
+            start();
+        }
+
+        return new Handle(battery);
+    }
+
+    private static synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        Thread thread = new Thread(BatteryReaper::run, "Battery Reaper");
+
+        thread.setDaemon(true);
+        thread.start();
+
+        started = true;
+    }
+
+    private static void run() {
+        while (true) {
+            Reference<? extends BatteryImpl> ref;
+
+            try {
+                ref = QUEUE.remove();
+            } catch (InterruptedException e) {
+                continue; // Nobody is supposed to interrupt us
+            }
+
+            Handle handle = (Handle) ref;
+            handle.manager.release(handle);
+        }
+    }
+
+    static final class Handle extends PhantomReference<BatteryImpl> {
+        final long ptr;
+        final ManagerImpl manager;
+
+        private Handle(BatteryImpl battery) {
+            super(battery, QUEUE);
+
+            this.ptr = battery.ptr;
+            this.manager = battery.manager;
+        }
+    }
+}
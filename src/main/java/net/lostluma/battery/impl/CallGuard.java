@@ -0,0 +1,82 @@
+package net.lostluma.battery.impl;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks native calls which are in progress, so native memory is only freed once no call is using it anymore.
+ * <p>
+ * Entering and exiting is lock-free, only closing may block while waiting for in-flight calls to finish.
+ */
+@ApiStatus.Internal
+public final class CallGuard {
+    // The sign bit marks the guard as closed, the remaining bits count calls in progress
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @return whether the call may proceed. If so, {@link #exit()} must be called afterward.
+     */
+    public boolean enter() {
+        while (true) {
+            long current = this.state.get();
+
+            if ((current & CLOSED) != 0) {
+                return false;
+            }
+
+            if (this.state.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void exit() {
+        if (this.state.decrementAndGet() == CLOSED) {
+            synchronized (this) {
+                this.notifyAll();
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return (this.state.get() & CLOSED) != 0;
+    }
+
+    /**
+     * Prevents new calls from entering, and waits for all calls in progress to exit.
+     *
+     * @return whether this call closed the guard, false if it was already closed.
+     */
+    public boolean close() {
+        long current;
+
+        do {
+            current = this.state.get();
+
+            if ((current & CLOSED) != 0) {
+                return false;
+            }
+        } while (!this.state.compareAndSet(current, current | CLOSED));
+
+        boolean interrupted = false;
+
+        synchronized (this) {
+            while (this.state.get() != CLOSED) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.spi.Backend;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Uses the native library through the Foreign Function and Memory API instead of JNI, on Java 22 and newer.
+ */
+@ApiStatus.Internal
+public final class ForeignBackend implements Backend {
+    @Override
+    public @NotNull String name() {
+        return "foreign";
+    }
+
+    @Override
+    public boolean isSupported() {
+        return ForeignSupport.isAvailable();
+    }
+
+    @Override
+    public @NotNull Manager create() throws IOException {
+        return ForeignSupport.createManager();
+    }
+}
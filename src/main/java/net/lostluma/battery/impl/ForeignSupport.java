@@ -0,0 +1,26 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Manager;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the foreign function backend.
+ * <p>
+ * The Foreign Function and Memory API requires Java 22, so this is unavailable.
+ * The jar contains a replacement in {@code META-INF/versions/22} which is used on newer Java versions.
+ */
+@ApiStatus.Internal
+public final class ForeignSupport {
+    private ForeignSupport() {
+    }
+
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    public static Manager createManager() throws IOException {
+        throw new IOException("The foreign function backend requires Java 22 or newer.");
+    }
+}
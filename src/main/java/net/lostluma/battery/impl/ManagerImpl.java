@@ -1,82 +1,204 @@
 package net.lostluma.battery.impl;
 
 import net.lostluma.battery.api.Battery;
-import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.PowerSummary;
 import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.api.metrics.Operation;
+import net.lostluma.battery.impl.instrument.Events;
+import net.lostluma.battery.impl.instrument.Probes;
 import net.lostluma.battery.impl.util.NativeUtil;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.lang.ref.PhantomReference;
-import java.lang.ref.Reference;
-import java.lang.ref.ReferenceQueue;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.IdentityHashMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @ApiStatus.Internal
-public final class ManagerImpl implements Manager {
+public final class ManagerImpl extends AbstractManager<BatteryImpl> {
     private final long ptr;
-    private boolean active;
 
     // I didn't want Battery to implement AutoCloseable
-    // So instead we free its memory using this here :)
-    private final ReferenceQueue<Battery> queue;
-    private final Map<PhantomReference<?>, Long> references;
+    // So instead we free its memory once it's collected :)
+    private final Set<BatteryReaper.Handle> handles;
+
+    // Batteries found by the previous enumeration, by their key
+    private final ReentrantLock enumeration;
+    private volatile Map<String, BatteryImpl> present;
 
     public ManagerImpl() throws IOException, LibraryLoadError {
+        super(BatteryImpl.class);
+
         NativeUtil.load();
 
-        this.ptr = create();
-        this.active = true;
+        long start = Probes.start();
+        Object event = Events.begin(Operation.MANAGER_CREATION);
+        boolean failed = true;
 
-        this.queue = new ReferenceQueue<>();
-        this.references = new IdentityHashMap<>();
-    }
+        try {
+            this.ptr = create();
+            failed = false;
+        } finally {
+            Events.commit(event, 0, failed ? 1 : 0);
+            Probes.stop(Operation.MANAGER_CREATION, start, failed);
+        }
+
+        this.handles = ConcurrentHashMap.newKeySet();
 
-    boolean isActive() {
-        return this.active;
+        this.enumeration = new ReentrantLock();
+        this.present = Collections.emptyMap();
     }
 
     @Override
-    public @NotNull Collection<Battery> batteries() throws IOException, RuntimeException {
-        if (this.isActive()) {
-            BatteryImpl[] batteries = this.batteries0();
+    protected @NotNull Collection<Battery> enumerate() throws IOException {
+        this.enumeration.lock();
+
+        long start = Probes.start();
+        Object event = Events.begin(Operation.ENUMERATION);
+        int count = -1;
+
+        try {
+            Map<String, BatteryImpl> previous = this.present;
+            Map<String, BatteryImpl> current = new HashMap<>();
+
+            // Contains the known key for batteries which are still present, and a new instance for all others
+            // Batteries whose key is shared with another battery are always created anew, see BatteryKeys
+            Object[] elements = this.batteries0(previous.keySet().toArray(new String[0]));
+            List<Battery> batteries = new ArrayList<>(elements.length);
+
+            for (Object element : elements) {
+                BatteryImpl battery;
 
-            Reference<?> ref;
+                if (element instanceof BatteryImpl) {
+                    battery = (BatteryImpl) element;
 
-            while ((ref = this.queue.poll()) != null) {
-                this.dropBattery(references.remove(ref));
+                    battery.publish();
+                    this.handles.add(BatteryReaper.register(battery));
+                } else {
+                    battery = previous.get((String) element);
+                }
+
+                batteries.add(battery);
+                current.put(battery.key, battery);
             }
 
-            for (BatteryImpl battery : batteries) {
-                this.references.put(new PhantomReference<>(battery, this.queue), battery.ptr);
+            // Includes batteries with an ambiguous key, which were replaced by a new instance
+            for (BatteryImpl battery : previous.values()) {
+                if (current.get(battery.key) != battery) {
+                    battery.markRemoved();
+                }
             }
 
-            return Arrays.asList(batteries);
-        } else {
-            throw new RuntimeException("Manager can not be used after being closed!");
+            this.present = current;
+            count = batteries.size();
+
+            return batteries;
+        } finally {
+            Events.commit(event, Math.max(count, 0), count < 0 ? 1 : 0);
+            Probes.stop(Operation.ENUMERATION, start, count < 0);
+
+            this.enumeration.unlock();
         }
     }
 
     @Override
-    public void close() {
-        if (!this.active) {
-            return;
+    protected @NotNull IOException[] refresh(BatteryImpl[] batteries) throws IOException {
+        long start = Probes.start();
+        Object event = Events.begin(Operation.REFRESH);
+        int failed = batteries.length;
+
+        try {
+            // Contains an error message for every battery that failed to refresh
+            String[] messages = this.refreshAll0(batteries);
+            IOException[] errors = new IOException[batteries.length];
+
+            failed = 0;
+
+            for (int index = 0; index < messages.length; index++) {
+                if (messages[index] == null) {
+                    batteries[index].publish();
+                } else {
+                    errors[index] = new IOException(messages[index]);
+                    failed ++;
+                }
+            }
+
+            return errors;
+        } finally {
+            Events.commit(event, batteries.length, failed);
+            Probes.stop(Operation.REFRESH, start, failed > 0);
         }
+    }
+
+    @Override
+    public @NotNull PowerSummary aggregate() throws IOException, RuntimeException {
+        this.enter();
 
-        this.active = false;
+        long start = Probes.start();
+        Object event = Events.begin(Operation.AGGREGATION);
+        int batteries = 0;
+        boolean failed = true;
+
+        try {
+            float[] values = this.aggregate0();
+
+            if (values.length != Aggregate.SIZE) {
+                throw new IOException("Native library returned an invalid summary.");
+            }
+
+            PowerSummary summary = Aggregate.summarize(values);
+
+            batteries = summary.batteries();
+            failed = false;
+
+            return summary;
+        } finally {
+            Events.commit(event, batteries, failed ? 1 : 0);
+            Probes.stop(Operation.AGGREGATION, start, failed);
+
+            this.exit();
+        }
+    }
+
+    @Override
+    protected void free() {
         this.drop(this.ptr);
 
-        for (Map.Entry<PhantomReference<?>, Long> entry : this.references.entrySet()) {
-            this.dropBattery(entry.getValue());
+        for (BatteryReaper.Handle handle : this.handles) {
+            this.release(handle);
+        }
+    }
+
+    /**
+     * Returns the number of batteries whose native memory has not been freed yet.
+     * <p>
+     * Native memory of a battery is freed in the background shortly after it is garbage collected,
+     * and for all batteries once the manager is closed.
+     *
+     * @return the amount of live native battery handles.
+     */
+    public int handleCount() {
+        return this.handles.size();
+    }
+
+    // Frees the native battery, unless the reaper or close did so already
+    void release(BatteryReaper.Handle handle) {
+        if (this.handles.remove(handle)) {
+            this.dropBattery(handle.ptr);
         }
     }
 
     private static native long create() throws IOException;
-    private native BatteryImpl[] batteries0() throws IOException;
+    private native Object[] batteries0(String[] known) throws IOException;
+    private native String[] refreshAll0(BatteryImpl[] batteries) throws IOException;
+    private native float[] aggregate0() throws IOException;
 
     private native void drop(long ptr);
     private native void dropBattery(long ptr);
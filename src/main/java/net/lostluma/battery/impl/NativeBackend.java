@@ -0,0 +1,27 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.api.spi.Backend;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+@ApiStatus.Internal
+public final class NativeBackend implements Backend {
+    @Override
+    public @NotNull String name() {
+        return "native";
+    }
+
+    @Override
+    public boolean isSupported() {
+        return true; // Only known once installing the library was attempted
+    }
+
+    @Override
+    public @NotNull Manager create() throws IOException, LibraryLoadError {
+        return new ManagerImpl();
+    }
+}
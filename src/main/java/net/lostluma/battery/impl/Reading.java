@@ -0,0 +1,29 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.State;
+
+/**
+ * Layout of the buffer the native library writes battery readings into.
+ * <p>
+ * Must be kept in sync with the {@code Reading} struct of the native library.
+ * All values are stored in native byte order.
+ */
+final class Reading {
+    static final int STATE_OF_CHARGE = 0;
+    static final int ENERGY = 4;
+    static final int ENERGY_FULL = 8;
+    static final int ENERGY_FULL_DESIGN = 12;
+    static final int ENERGY_RATE = 16;
+    static final int VOLTAGE = 20;
+    static final int STATE_OF_HEALTH = 24;
+    static final int STATE = 28; // Ordinal of the State enum
+    static final int TEMPERATURE = 32; // NaN if unavailable
+    static final int TIME_TO_FULL = 36; // Seconds, NaN if unavailable
+    static final int TIME_TO_EMPTY = 40; // Seconds, NaN if unavailable
+    static final int CYCLE_COUNT = 48; // Long.MIN_VALUE if unavailable
+
+    static final int SIZE = 56;
+
+    // Avoids cloning the array returned by State#values on every access
+    static final State[] STATES = State.values();
+}
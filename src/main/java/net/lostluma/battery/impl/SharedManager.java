@@ -0,0 +1,230 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.PowerSummary;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.impl.instrument.Probes;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A view of the process-wide native manager, which is shared by all views and closed together with the last one.
+ * <p>
+ * Enumerations, refreshes, and summaries which are at most the view's maximum age old are reused,
+ * including those requested through other views.
+ */
+@ApiStatus.Internal
+public final class SharedManager implements Manager {
+    private static final Object LOCK = new Object();
+    private static @Nullable Shared current;
+
+    private final Shared shared;
+    private final long maxAge;
+
+    private final AtomicBoolean closed;
+    private final AtomicReference<CompletableFuture<Collection<Battery>>> pendingBatteries;
+
+    private SharedManager(Shared shared, long maxAge) {
+        this.shared = shared;
+        this.maxAge = maxAge;
+
+        this.closed = new AtomicBoolean();
+        this.pendingBatteries = new AtomicReference<>();
+    }
+
+    /**
+     * Creates a new view, and the shared native manager if no other view is open.
+     */
+    public static SharedManager acquire(Duration maxAge) throws IOException, LibraryLoadError {
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("Maximum age must not be negative.");
+        }
+
+        long age = maxAge.getSeconds() >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : maxAge.toNanos();
+
+        synchronized (LOCK) {
+            if (current == null) {
+                current = new Shared(new ManagerImpl());
+            }
+
+            current.references ++;
+            return new SharedManager(current, age);
+        }
+    }
+
+    @Override
+    public @NotNull Collection<Battery> batteries() throws IOException, RuntimeException {
+        this.ensureOpen();
+
+        // Copy, so callers can't modify the list handed to other views
+        return new ArrayList<>(this.shared.batteries.get(this.maxAge, this.shared.manager::batteries));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<Battery>> batteriesAsync() {
+        if (this.closed.get()) {
+            CompletableFuture<Collection<Battery>> future = new CompletableFuture<>();
+            future.completeExceptionally(new RejectedExecutionException("Manager is closed."));
+
+            return future;
+        }
+
+        return this.shared.manager.async.submit(this.pendingBatteries, this::batteries);
+    }
+
+    @Override
+    public @NotNull RefreshResult refreshAll(@NotNull Collection<Battery> batteries) throws IOException, RuntimeException {
+        this.ensureOpen();
+
+        for (Battery battery : batteries) {
+            if (!(battery instanceof BatteryImpl) || ((BatteryImpl) battery).manager != this.shared.manager) {
+                throw new IllegalArgumentException("Battery was not created by this manager.");
+            }
+        }
+
+        long requested = System.nanoTime();
+        List<Battery> stale = new ArrayList<>(batteries.size());
+
+        for (Battery battery : batteries) {
+            if (battery.isPresent() && requested - battery.snapshot().timestamp() <= this.maxAge) {
+                Probes.cacheHit();
+            } else {
+                stale.add(battery);
+            }
+        }
+
+        if (stale.isEmpty()) {
+            return new RefreshResult(batteries.size(), new LinkedHashMap<>());
+        }
+
+        // Concurrent bulk refreshes of overlapping batteries wait for each other, and then skip what the other refreshed
+        this.shared.refresh.lock();
+
+        try {
+            List<Battery> refresh = new ArrayList<>(stale.size());
+
+            for (Battery battery : stale) {
+                if (battery.isPresent() && battery.snapshot().timestamp() - requested >= 0) {
+                    Probes.cacheCoalesced();
+                } else {
+                    Probes.cacheMiss();
+                    refresh.add(battery);
+                }
+            }
+
+            if (refresh.isEmpty()) {
+                return new RefreshResult(batteries.size(), new LinkedHashMap<>());
+            }
+
+            RefreshResult result = this.shared.manager.refreshAll(refresh);
+            Map<Battery, IOException> failures = result.failures();
+
+            return new RefreshResult(batteries.size() - failures.size(), failures);
+        } finally {
+            this.shared.refresh.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull PowerSummary aggregate() throws IOException, RuntimeException {
+        this.ensureOpen();
+        return this.shared.summary.get(this.maxAge, this.shared.manager::aggregate);
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        synchronized (LOCK) {
+            if (--this.shared.references == 0) {
+                this.shared.manager.close();
+                current = null;
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (this.closed.get()) {
+            throw new IllegalStateException("Manager can not be used after being closed!");
+        }
+    }
+
+    private static final class Shared {
+        private final ManagerImpl manager;
+        private int references; // Guarded by LOCK
+
+        private final Cached<Collection<Battery>> batteries = new Cached<>();
+        private final Cached<PowerSummary> summary = new Cached<>();
+        private final ReentrantLock refresh = new ReentrantLock();
+
+        private Shared(ManagerImpl manager) {
+            this.manager = manager;
+        }
+    }
+
+    /**
+     * Result of a call which is reused while it is recent enough, only one thread calls through at a time.
+     */
+    private static final class Cached<T> {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // The value is written before its timestamp, so a visible timestamp implies a visible value
+        private @Nullable T value;
+        private volatile long timestamp;
+
+        T get(long maxAge, Loader<T> loader) throws IOException {
+            long requested = System.nanoTime();
+
+            if (requested - this.timestamp <= maxAge && this.value != null) {
+                Probes.cacheHit();
+                return this.value;
+            }
+
+            this.lock.lock();
+
+            try {
+                // Loaded by another thread while waiting for the lock
+                if (this.value != null && this.timestamp - requested >= 0) {
+                    Probes.cacheCoalesced();
+                    return this.value;
+                }
+
+                Probes.cacheMiss();
+
+                // Taken before loading, so waiting callers only reuse results requested after them
+                long timestamp = System.nanoTime();
+                T value = loader.load();
+
+                this.value = value;
+                this.timestamp = timestamp;
+
+                return value;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader<T> {
+        T load() throws IOException;
+    }
+}
@@ -0,0 +1,189 @@
+package net.lostluma.battery.impl.history;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static net.lostluma.battery.impl.history.Segments.*;
+
+/**
+ * Decodes the records of a segment file one at a time, into reused fields.
+ */
+@ApiStatus.Internal
+public final class SegmentReader {
+    private final MappedByteBuffer buffer;
+
+    private final long bits; // Committed length when the segment was opened
+    private final long count;
+    private final long first;
+    private final long last;
+
+    private long position;
+    private long read;
+
+    // Current record
+    private long timestamp;
+    private long delta;
+    private final int[] values;
+    private final int[] leading;
+    private final int[] trailing;
+    private int state;
+    private long cycleCount;
+
+    private SegmentReader(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+
+        this.bits = buffer.getLong(HEADER_BITS);
+        this.count = buffer.getLong(HEADER_COUNT);
+        this.first = buffer.getLong(HEADER_FIRST);
+        this.last = buffer.getLong(HEADER_LAST);
+
+        this.values = new int[FLOATS];
+        this.leading = new int[FLOATS];
+        this.trailing = new int[FLOATS];
+    }
+
+    /**
+     * @return the reader, or null if the file is not a valid segment.
+     */
+    public static SegmentReader open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(HEADER_MAGIC) != MAGIC) {
+            return null;
+        }
+
+        return new SegmentReader(buffer);
+    }
+
+    /**
+     * @return whether any record of this segment may lie within the time range.
+     */
+    public boolean overlaps(long from, long to) {
+        return this.count > 0 && this.first <= to && this.last >= from;
+    }
+
+    /**
+     * Decodes the next record.
+     *
+     * @return whether there was another record.
+     */
+    public boolean next() {
+        if (this.read >= this.count || this.position >= this.bits) {
+            return false;
+        }
+
+        if (this.read == 0) {
+            this.timestamp = this.read(64);
+
+            for (int index = 0; index < FLOATS; index++) {
+                this.values[index] = (int) this.read(32);
+                this.leading[index] = -1;
+            }
+
+            this.state = (int) this.read(STATE_BITS);
+            this.cycleCount = this.read(64);
+        } else {
+            long timestamp = this.timestamp + this.delta + this.readTimestamp();
+
+            this.delta = timestamp - this.timestamp;
+            this.timestamp = timestamp;
+
+            for (int index = 0; index < FLOATS; index++) {
+                this.readFloat(index);
+            }
+
+            if (this.read(1) == 1) {
+                this.state = (int) this.read(STATE_BITS);
+            }
+
+            if (this.read(1) == 1) {
+                this.cycleCount = this.read(64);
+            }
+        }
+
+        this.read ++;
+        return true;
+    }
+
+    public long timestamp() {
+        return this.timestamp;
+    }
+
+    public float value(int index) {
+        return Float.intBitsToFloat(this.values[index]);
+    }
+
+    public int state() {
+        return this.state;
+    }
+
+    public long cycleCount() {
+        return this.cycleCount;
+    }
+
+    // Returns the delta-of-delta
+    private long readTimestamp() {
+        if (this.read(1) == 0) {
+            return 0;
+        } else if (this.read(1) == 0) {
+            return signed(this.read(7), 7);
+        } else if (this.read(1) == 0) {
+            return signed(this.read(9), 9);
+        } else if (this.read(1) == 0) {
+            return signed(this.read(12), 12);
+        } else {
+            return this.read(64);
+        }
+    }
+
+    private void readFloat(int index) {
+        if (this.read(1) == 0) {
+            return; // Unchanged
+        }
+
+        if (this.read(1) == 1) {
+            this.leading[index] = (int) this.read(5);
+            this.trailing[index] = 32 - this.leading[index] - ((int) this.read(5) + 1);
+        }
+
+        int length = 32 - this.leading[index] - this.trailing[index];
+        int xor = (int) this.read(length) << this.trailing[index];
+
+        this.values[index] ^= xor;
+    }
+
+    private long read(int count) {
+        long value = 0;
+
+        while (count > 0) {
+            int position = HEADER_SIZE + (int) (this.position >>> 3);
+            int offset = (int) (this.position & 7);
+            int length = Math.min(8 - offset, count);
+
+            int chunk = (this.buffer.get(position) & 0xFF) >>> (8 - offset - length) & ((1 << length) - 1);
+            value = value << length | chunk;
+
+            this.position += length;
+            count -= length;
+        }
+
+        return value;
+    }
+
+    private static long signed(long value, int bits) {
+        return value << (64 - bits) >> (64 - bits);
+    }
+}
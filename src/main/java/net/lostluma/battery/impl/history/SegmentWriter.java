@@ -0,0 +1,221 @@
+package net.lostluma.battery.impl.history;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static net.lostluma.battery.impl.history.Segments.*;
+
+/**
+ * Appends records to a memory-mapped segment file.
+ */
+@ApiStatus.Internal
+public final class SegmentWriter {
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final MappedByteBuffer buffer;
+    private final long capacity; // In bits, excluding the header
+
+    private long bits;
+    private long count;
+
+    // Previous record, the next one is encoded relative to it
+    private long timestamp;
+    private long delta;
+    private final int[] values;
+    private final int[] leading;
+    private final int[] trailing;
+    private int state;
+    private long cycleCount;
+
+    private SegmentWriter(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.capacity = (long) (buffer.capacity() - HEADER_SIZE) * 8;
+
+        this.values = new int[FLOATS];
+        this.leading = new int[FLOATS];
+        this.trailing = new int[FLOATS];
+    }
+
+    /**
+     * Creates the next segment in the directory.
+     *
+     * @param size size of the segment file in bytes, including its header.
+     */
+    public static SegmentWriter create(Path directory, int size) throws IOException {
+        Files.createDirectories(directory);
+
+        for (int attempt = 1; ; attempt++) {
+            Path path = Segments.next(directory);
+            MappedByteBuffer buffer;
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (FileAlreadyExistsException e) {
+                // Another recorder created the same segment concurrently, the next listing includes it
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+
+                continue;
+            } catch (IOException e) {
+                // Don't leave an empty segment behind for every failed attempt, e.g. while the disk is full
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+
+                throw e;
+            }
+
+            buffer.putInt(HEADER_MAGIC, MAGIC);
+            return new SegmentWriter(buffer);
+        }
+    }
+
+    /**
+     * @return whether another record is guaranteed to fit.
+     */
+    public boolean hasSpace() {
+        return this.capacity - this.bits >= MAX_RECORD_BITS;
+    }
+
+    /**
+     * Appends a record, the caller must check there is enough space first.
+     *
+     * @param values float values of the record, see the indices in {@link Segments}.
+     */
+    public void append(long timestamp, float[] values, int state, long cycleCount) {
+        if (this.count == 0) {
+            this.write(timestamp, 64);
+
+            for (int index = 0; index < FLOATS; index++) {
+                int bits = Float.floatToRawIntBits(values[index]);
+
+                this.write(bits, 32);
+                this.values[index] = bits;
+                this.leading[index] = -1;
+            }
+
+            this.write(state, STATE_BITS);
+            this.write(cycleCount, 64);
+
+            this.buffer.putLong(HEADER_FIRST, timestamp);
+        } else {
+            this.writeTimestamp(timestamp);
+
+            for (int index = 0; index < FLOATS; index++) {
+                this.writeFloat(index, Float.floatToRawIntBits(values[index]));
+            }
+
+            if (state == this.state) {
+                this.write(0, 1);
+            } else {
+                this.write(1, 1);
+                this.write(state, STATE_BITS);
+            }
+
+            if (cycleCount == this.cycleCount) {
+                this.write(0, 1);
+            } else {
+                this.write(1, 1);
+                this.write(cycleCount, 64);
+            }
+
+            this.delta = timestamp - this.timestamp;
+        }
+
+        this.timestamp = timestamp;
+        this.state = state;
+        this.cycleCount = cycleCount;
+        this.count ++;
+
+        // Commit the record, readers never look past the committed length
+        this.buffer.putLong(HEADER_COUNT, this.count);
+        this.buffer.putLong(HEADER_LAST, timestamp);
+        this.buffer.putLong(HEADER_BITS, this.bits);
+    }
+
+    /**
+     * Write all changes to the storage device.
+     */
+    public void force() {
+        this.buffer.force();
+    }
+
+    private void writeTimestamp(long timestamp) {
+        long dod = (timestamp - this.timestamp) - this.delta;
+
+        if (dod == 0) {
+            this.write(0, 1);
+        } else if (dod >= -64 && dod < 64) {
+            this.write(0b10, 2);
+            this.write(dod, 7);
+        } else if (dod >= -256 && dod < 256) {
+            this.write(0b110, 3);
+            this.write(dod, 9);
+        } else if (dod >= -2048 && dod < 2048) {
+            this.write(0b1110, 4);
+            this.write(dod, 12);
+        } else {
+            this.write(0b1111, 4);
+            this.write(dod, 64);
+        }
+    }
+
+    private void writeFloat(int index, int bits) {
+        int xor = bits ^ this.values[index];
+        this.values[index] = bits;
+
+        if (xor == 0) {
+            this.write(0, 1);
+            return;
+        }
+
+        int leading = Math.min(Integer.numberOfLeadingZeros(xor), 31);
+        int trailing = Integer.numberOfTrailingZeros(xor);
+
+        // Reuse the previous window if the meaningful bits fit into it
+        if (this.leading[index] >= 0 && leading >= this.leading[index] && trailing >= this.trailing[index]) {
+            int length = 32 - this.leading[index] - this.trailing[index];
+
+            this.write(0b10, 2);
+            this.write(xor >>> this.trailing[index], length);
+        } else {
+            int length = 32 - leading - trailing;
+
+            this.write(0b11, 2);
+            this.write(leading, 5);
+            this.write(length - 1, 5);
+            this.write(xor >>> trailing, length);
+
+            this.leading[index] = leading;
+            this.trailing[index] = trailing;
+        }
+    }
+
+    // Writes the lowest bits of the value, most significant first
+    private void write(long value, int count) {
+        while (count > 0) {
+            int position = HEADER_SIZE + (int) (this.bits >>> 3);
+            int offset = (int) (this.bits & 7);
+            int length = Math.min(8 - offset, count);
+
+            int chunk = (int) (value >>> (count - length)) & ((1 << length) - 1);
+            int current = offset == 0 ? 0 : this.buffer.get(position);
+
+            this.buffer.put(position, (byte) (current | chunk << (8 - offset - length)));
+
+            this.bits += length;
+            count -= length;
+        }
+    }
+}
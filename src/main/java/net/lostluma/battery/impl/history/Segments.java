@@ -0,0 +1,115 @@
+package net.lostluma.battery.impl.history;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout of history segment files.
+ * <p>
+ * Each segment starts with a fixed header, followed by a bit stream of records. The first record of a segment
+ * is stored verbatim, later records store timestamps as delta-of-delta and values XORed with their predecessor.
+ * Header fields are updated after each record, so a partially written record is never read.
+ */
+@ApiStatus.Internal
+public final class Segments {
+    static final int MAGIC = 0x42484C31; // "BHL1"
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_BITS = 8; // Committed length of the bit stream
+    static final int HEADER_COUNT = 16;
+    static final int HEADER_FIRST = 24; // Timestamp of the first record
+    static final int HEADER_LAST = 32; // Timestamp of the last record
+    static final int HEADER_SIZE = 64;
+
+    // Indices of the float values of a record
+    public static final int STATE_OF_CHARGE = 0;
+    public static final int ENERGY = 1;
+    public static final int ENERGY_FULL = 2;
+    public static final int ENERGY_FULL_DESIGN = 3;
+    public static final int ENERGY_RATE = 4;
+    public static final int VOLTAGE = 5;
+    public static final int STATE_OF_HEALTH = 6;
+    public static final int TEMPERATURE = 7;
+    public static final int TIME_TO_FULL = 8;
+    public static final int TIME_TO_EMPTY = 9;
+
+    public static final int FLOATS = 10;
+
+    static final int STATE_BITS = 3;
+
+    // Upper bound of a single encoded record, segments roll over once less space is left
+    static final int MAX_RECORD_BITS = (4 + 64) + FLOATS * (2 + 5 + 5 + 32) + (1 + STATE_BITS) + (1 + 64);
+
+    private static final String EXTENSION = ".seg";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private Segments() {
+    }
+
+    /**
+     * @return the directory holding all segments of a battery.
+     * @throws IllegalArgumentException the name is empty.
+     */
+    public static Path directory(Path root, String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Name must not be empty.");
+        }
+
+        StringBuilder builder = new StringBuilder(name.length());
+
+        // Serial numbers are arbitrary strings, escape everything which isn't safe in a file name
+        // A leading dot is escaped too, so names can't refer to the root, its parent, or be hidden
+        for (byte value : name.getBytes(StandardCharsets.UTF_8)) {
+            boolean safe = (value >= 'a' && value <= 'z') || (value >= 'A' && value <= 'Z') || (value >= '0' && value <= '9') || value == '-' || (value == '.' && builder.length() > 0);
+
+            if (safe) {
+                builder.append((char) value);
+            } else {
+                builder.append('%').append(HEX[(value >> 4) & 0xF]).append(HEX[value & 0xF]);
+            }
+        }
+
+        return root.resolve(builder.toString());
+    }
+
+    /**
+     * @return all segment files in the directory, oldest first.
+     */
+    public static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+
+        List<Path> segments = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+
+        // Names are zero-padded sequence numbers
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static Path next(Path directory) throws IOException {
+        List<Path> segments = list(directory);
+        long sequence = 0;
+
+        if (!segments.isEmpty()) {
+            String name = segments.get(segments.size() - 1).getFileName().toString();
+            sequence = Long.parseLong(name.substring(0, name.length() - EXTENSION.length())) + 1;
+        }
+
+        return directory.resolve(String.format("%016d", sequence) + EXTENSION);
+    }
+}
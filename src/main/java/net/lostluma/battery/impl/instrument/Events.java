@@ -0,0 +1,31 @@
+package net.lostluma.battery.impl.instrument;
+
+import net.lostluma.battery.api.metrics.Operation;
+import net.lostluma.battery.impl.util.LoadPhases;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Emits Flight Recorder events.
+ * <p>
+ * Flight Recorder is not available on Java 8, so this does nothing.
+ * The jar contains a replacement in {@code META-INF/versions/11} which is used on newer Java versions.
+ */
+@ApiStatus.Internal
+public final class Events {
+    private Events() {
+    }
+
+    /**
+     * @return the started event, or null if it is not recorded.
+     */
+    public static @Nullable Object begin(Operation operation) {
+        return null;
+    }
+
+    public static void commit(@Nullable Object event, int batteries, int failures) {
+    }
+
+    public static void commitLoad(@Nullable Object event, LoadPhases phases) {
+    }
+}
@@ -0,0 +1,60 @@
+package net.lostluma.battery.impl.instrument;
+
+import net.lostluma.battery.api.metrics.LatencySnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class LatencyHistogram {
+    private final AtomicLongArray counts;
+
+    private final AtomicLong errors;
+    private final AtomicLong totalNanos;
+    private final AtomicLong maxNanos;
+
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(LatencySnapshot.buckets());
+
+        this.errors = new AtomicLong();
+        this.totalNanos = new AtomicLong();
+        this.maxNanos = new AtomicLong();
+    }
+
+    void record(long nanos, boolean failed) {
+        this.counts.incrementAndGet(LatencySnapshot.bucket(nanos));
+        this.totalNanos.addAndGet(nanos);
+
+        if (failed) {
+            this.errors.incrementAndGet();
+        }
+
+        long max = this.maxNanos.get();
+
+        while (nanos > max && !this.maxNanos.compareAndSet(max, nanos)) {
+            max = this.maxNanos.get();
+        }
+    }
+
+    // Not atomic across fields, concurrent calls may be partially included
+    LatencySnapshot snapshot() {
+        long[] counts = new long[this.counts.length()];
+        long count = 0;
+
+        for (int index = 0; index < counts.length; index++) {
+            counts[index] = this.counts.get(index);
+            count += counts[index];
+        }
+
+        return new LatencySnapshot(counts, count, this.errors.get(), this.totalNanos.get(), this.maxNanos.get());
+    }
+
+    void reset() {
+        for (int index = 0; index < this.counts.length(); index++) {
+            this.counts.set(index, 0);
+        }
+
+        this.errors.set(0);
+        this.totalNanos.set(0);
+        this.maxNanos.set(0);
+    }
+}
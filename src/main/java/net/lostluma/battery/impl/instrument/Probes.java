@@ -0,0 +1,82 @@
+package net.lostluma.battery.impl.instrument;
+
+import net.lostluma.battery.api.metrics.CacheStatistics;
+import net.lostluma.battery.api.metrics.LatencySnapshot;
+import net.lostluma.battery.api.metrics.Operation;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies of instrumented operations while enabled, and counts outcomes of max-age updates.
+ */
+@ApiStatus.Internal
+public final class Probes {
+    // Returned by start while disabled, stop ignores it
+    public static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled = false;
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+
+    // Outcomes of max-age updates, always counted as they are cheap compared to a refresh
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+    private static final LongAdder CACHE_COALESCED = new LongAdder();
+
+    static {
+        for (int index = 0; index < HISTOGRAMS.length; index++) {
+            HISTOGRAMS[index] = new LatencyHistogram();
+        }
+    }
+
+    private Probes() {
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    public static void stop(Operation operation, long start, boolean failed) {
+        if (start != DISABLED) {
+            HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - start, failed);
+        }
+    }
+
+    public static LatencySnapshot snapshot(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()].snapshot();
+    }
+
+    public static void cacheHit() {
+        CACHE_HITS.increment();
+    }
+
+    public static void cacheMiss() {
+        CACHE_MISSES.increment();
+    }
+
+    public static void cacheCoalesced() {
+        CACHE_COALESCED.increment();
+    }
+
+    public static CacheStatistics cacheStatistics() {
+        return new CacheStatistics(CACHE_HITS.sum(), CACHE_MISSES.sum(), CACHE_COALESCED.sum());
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        CACHE_COALESCED.reset();
+    }
+}
@@ -0,0 +1,350 @@
+package net.lostluma.battery.impl.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.metrics.MetricsExporter;
+import net.lostluma.battery.impl.AbstractBattery;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static net.lostluma.battery.impl.metrics.TextBuffer.ascii;
+
+@ApiStatus.Internal
+public final class MetricsExporterImpl implements MetricsExporter {
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    // Batteries are only enumerated again after this long, or once one of them disappeared
+    private static final long ENUMERATION_INTERVAL = Duration.ofSeconds(30).toNanos();
+
+    private static final Gauge[] GAUGES = {
+        new Gauge("battery_state_of_charge_percent", "State of charge in percent.", BatterySnapshot::stateOfCharge),
+        new Gauge("battery_energy_watt_hours", "Energy currently stored.", BatterySnapshot::energy),
+        new Gauge("battery_energy_full_watt_hours", "Energy stored when full.", BatterySnapshot::energyFull),
+        new Gauge("battery_energy_full_design_watt_hours", "Energy stored when full, as designed.", BatterySnapshot::energyFullDesign),
+        new Gauge("battery_energy_rate_watts", "Power drawn while discharging, or supplied while charging.", BatterySnapshot::energyRate),
+        new Gauge("battery_voltage_volts", "Current voltage.", BatterySnapshot::voltage),
+        new Gauge("battery_state_of_health_percent", "State of health in percent.", BatterySnapshot::stateOfHealth),
+        new Gauge("battery_temperature_celsius", "Temperature in degrees Celsius.", BatterySnapshot::temperatureCelsiusOrNaN),
+        new Gauge("battery_time_to_full_seconds", "Estimated time until full.", BatterySnapshot::timeToFullSeconds),
+        new Gauge("battery_time_to_empty_seconds", "Estimated time until empty.", BatterySnapshot::timeToEmptySeconds),
+    };
+
+    private static final byte[] CYCLE_COUNT = ascii("battery_cycle_count");
+    private static final byte[] CYCLE_COUNT_HEADER = header("battery_cycle_count", "gauge", "Number of charge cycles.");
+
+    private static final byte[] STATE = ascii("battery_state");
+    private static final byte[] STATE_HEADER = header("battery_state", "stateset", "Charging state.");
+    private static final State[] STATES = State.values();
+    private static final byte[][] STATE_LABELS = new byte[STATES.length][];
+
+    private static final byte[] UP = ascii("battery_up");
+    private static final byte[] UP_HEADER = header("battery_up", "gauge", "Whether the most recent refresh succeeded.");
+
+    private static final byte[] EOF = ascii("# EOF\n");
+
+    static {
+        for (State state : STATES) {
+            STATE_LABELS[state.ordinal()] = ascii(",battery_state=\"" + state.name().toLowerCase(Locale.ROOT) + "\"}");
+        }
+    }
+
+    private final Manager manager;
+    private final long maxAge;
+    private volatile InetSocketAddress address;
+
+    private final AtomicBoolean started;
+    private volatile boolean closed;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Single flight, only one scrape refreshes while the others wait for its result
+    // Scrapes are also served while holding it, so the reused buffer is never written while being sent
+    private final ReentrantLock refresh;
+
+    // Reused across refreshes, only accessed while holding the refresh lock
+    private final TextBuffer buffer;
+    private boolean rendered;
+    private long time;
+
+    // Batteries of the most recent enumeration, and their labels at the same index
+    private Collection<Battery> enumeration;
+    private long enumerated;
+    private int count;
+    private Battery[] batteries;
+    private byte[][] rows;
+
+    // Swapped with the arrays above when enumerating, so labels of known batteries can be carried over
+    private Battery[] spareBatteries;
+    private byte[][] spareRows;
+
+    public MetricsExporterImpl(Manager manager, InetSocketAddress address, Duration maxAge) {
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("Maximum age must not be negative.");
+        }
+
+        this.manager = manager;
+        this.maxAge = maxAge.getSeconds() >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE : maxAge.toNanos();
+        this.address = address;
+
+        this.started = new AtomicBoolean();
+        this.refresh = new ReentrantLock();
+
+        this.buffer = new TextBuffer(4096);
+
+        this.batteries = new Battery[0];
+        this.rows = new byte[0][];
+        this.spareBatteries = new Battery[0];
+        this.spareRows = new byte[0][];
+    }
+
+    @Override
+    public synchronized void start() throws IOException, IllegalStateException {
+        if (this.closed || !this.started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Exporter was already started or closed.");
+        }
+
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Battery Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.server = HttpServer.create(this.address, 0);
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+
+        this.address = this.server.getAddress();
+    }
+
+    @Override
+    public @NotNull InetSocketAddress address() {
+        return this.address;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+
+        if (this.server != null) {
+            this.server.stop(0);
+            this.executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            long requested = System.nanoTime();
+            this.refresh.lock();
+
+            try {
+                try {
+                    // Reused if recent enough, or if another scrape rendered it while this one was waiting
+                    if (!this.rendered || requested - this.time > this.maxAge && this.time - requested < 0) {
+                        this.render();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    byte[] message = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+
+                    exchange.sendResponseHeaders(503, message.length);
+                    exchange.getResponseBody().write(message);
+                    return;
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, this.buffer.length());
+
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(this.buffer.bytes(), 0, this.buffer.length());
+                }
+            } finally {
+                this.refresh.unlock();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Must be called while holding the refresh lock
+    private void render() throws IOException {
+        // Taken before refreshing, so waiting scrapes only reuse results requested after them
+        long time = System.nanoTime();
+        this.rendered = false;
+
+        if (this.enumeration == null || time - this.enumerated >= ENUMERATION_INTERVAL) {
+            this.enumerate(time);
+        }
+
+        RefreshResult result = this.manager.refreshAll(this.enumeration);
+
+        for (int i = 0; i < this.count; i++) {
+            if (!this.batteries[i].isPresent()) {
+                // Removed since the last enumeration, look for batteries again right away
+                this.enumerate(time);
+                result = this.manager.refreshAll(this.enumeration);
+
+                break;
+            }
+        }
+
+        Map<Battery, IOException> failures = result.failures();
+
+        int count = this.count;
+        Battery[] batteries = this.batteries;
+        byte[][] labels = this.rows;
+
+        TextBuffer buffer = this.buffer;
+        buffer.clear();
+
+        for (Gauge gauge : GAUGES) {
+            buffer.append(gauge.header);
+
+            for (int i = 0; i < count; i++) {
+                float value = gauge.getter.get(batteries[i].snapshot());
+
+                if (!Float.isNaN(value)) {
+                    buffer.append(gauge.name).append(labels[i]).append('}').append(' ').append(value).append('\n');
+                }
+            }
+        }
+
+        buffer.append(CYCLE_COUNT_HEADER);
+
+        for (int i = 0; i < count; i++) {
+            long value = batteries[i].snapshot().cycleCountOrMin();
+
+            if (value != Long.MIN_VALUE) {
+                buffer.append(CYCLE_COUNT).append(labels[i]).append('}').append(' ').append(value).append('\n');
+            }
+        }
+
+        buffer.append(STATE_HEADER);
+
+        for (int i = 0; i < count; i++) {
+            State current = batteries[i].snapshot().state();
+
+            for (State state : STATES) {
+                buffer.append(STATE).append(labels[i]).append(STATE_LABELS[state.ordinal()]).append(' ').append(state == current ? '1' : '0').append('\n');
+            }
+        }
+
+        buffer.append(UP_HEADER);
+
+        for (int i = 0; i < count; i++) {
+            boolean up = failures.isEmpty() || !failures.containsKey(batteries[i]);
+            buffer.append(UP).append(labels[i]).append('}').append(' ').append(up ? '1' : '0').append('\n');
+        }
+
+        buffer.append(EOF);
+
+        this.time = time;
+        this.rendered = true;
+    }
+
+    // Must be called while holding the refresh lock
+    private void enumerate(long time) throws IOException {
+        Collection<Battery> found = this.manager.batteries();
+        int size = found.size();
+
+        if (this.spareBatteries.length < size) {
+            this.spareBatteries = new Battery[size];
+            this.spareRows = new byte[size][];
+        }
+
+        Battery[] batteries = this.spareBatteries;
+        byte[][] rows = this.spareRows;
+        int index = 0;
+
+        for (Battery battery : found) {
+            byte[] row = null;
+
+            // Carry over labels of known batteries, the amount of batteries is too small to need a map
+            for (int i = 0; i < this.count; i++) {
+                if (this.batteries[i].equals(battery)) {
+                    row = this.rows[i];
+                    break;
+                }
+            }
+
+            batteries[index] = battery;
+            rows[index] = row != null ? row : labels(battery, index);
+            index ++;
+        }
+
+        // Forget batteries which disappeared, so they can be collected
+        Arrays.fill(this.batteries, null);
+        Arrays.fill(this.rows, null);
+
+        this.spareBatteries = this.batteries;
+        this.spareRows = this.rows;
+
+        this.batteries = batteries;
+        this.rows = rows;
+        this.count = size;
+
+        this.enumeration = found;
+        this.enumerated = time;
+    }
+
+    // Everything up to the closing brace, so more labels can be appended
+    private static byte[] labels(Battery battery, int index) {
+        // Vendor, model, and serial number may be shared by multiple batteries, the key never is
+        String key = battery instanceof AbstractBattery ? ((AbstractBattery) battery).key() : "#" + index;
+
+        return ("{battery=\"" + escape(key)
+            + "\",vendor=\"" + escape(battery.vendor().orElse(""))
+            + "\",model=\"" + escape(battery.model().orElse(""))
+            + "\",serial=\"" + escape(battery.serialNumber().orElse(""))
+            + "\",technology=\"" + battery.technology().name().toLowerCase(Locale.ROOT)
+            + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static byte[] header(String name, String type, String help) {
+        return ascii("# TYPE " + name + " " + type + "\n# HELP " + name + " " + help + "\n");
+    }
+
+    @FunctionalInterface
+    private interface FloatGetter {
+        float get(BatterySnapshot snapshot);
+    }
+
+    private static final class Gauge {
+        final byte[] name;
+        final byte[] header;
+        final FloatGetter getter;
+
+        Gauge(String name, String help, FloatGetter getter) {
+            this.name = ascii(name);
+            this.header = header(name, "gauge", help);
+            this.getter = getter;
+        }
+    }
+}
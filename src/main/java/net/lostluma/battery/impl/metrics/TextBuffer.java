@@ -0,0 +1,128 @@
+package net.lostluma.battery.impl.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for ASCII text, which formats numbers without allocating.
+ */
+final class TextBuffer {
+    // Four digits after the decimal point, enough for every value exported
+    private static final long FRACTION_SCALE = 10_000L;
+
+    // Above this integer parts no longer fit into a long after scaling
+    private static final float MAX_FIXED = 1e14f;
+
+    private static final byte[] NAN = ascii("NaN");
+    private static final byte[] POSITIVE_INFINITY = ascii("+Inf");
+    private static final byte[] NEGATIVE_INFINITY = ascii("-Inf");
+
+    private byte[] bytes;
+    private int length;
+
+    TextBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    byte[] bytes() {
+        return this.bytes;
+    }
+
+    int length() {
+        return this.length;
+    }
+
+    void clear() {
+        this.length = 0;
+    }
+
+    TextBuffer append(byte[] value) {
+        this.ensure(value.length);
+
+        System.arraycopy(value, 0, this.bytes, this.length, value.length);
+        this.length += value.length;
+
+        return this;
+    }
+
+    TextBuffer append(char value) {
+        this.ensure(1);
+
+        this.bytes[this.length ++] = (byte) value;
+        return this;
+    }
+
+    TextBuffer append(long value) {
+        if (value < 0) {
+            this.append('-');
+
+            if (value == Long.MIN_VALUE) {
+                return this.append(Long.toString(value).substring(1).getBytes(StandardCharsets.US_ASCII));
+            }
+
+            value = -value;
+        }
+
+        this.ensure(19);
+
+        int start = this.length;
+
+        do {
+            this.bytes[this.length ++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        reverse(this.bytes, start, this.length - 1);
+        return this;
+    }
+
+    TextBuffer append(float value) {
+        if (Float.isNaN(value)) {
+            return this.append(NAN);
+        } else if (Float.isInfinite(value)) {
+            return this.append(value > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+        } else if (Math.abs(value) >= MAX_FIXED) {
+            return this.append(Float.toString(value).getBytes(StandardCharsets.US_ASCII)); // Not expected for battery values
+        }
+
+        if (value < 0.0f) {
+            this.append('-');
+            value = -value;
+        }
+
+        long scaled = Math.round((double) value * FRACTION_SCALE);
+        long fraction = scaled % FRACTION_SCALE;
+
+        this.append(scaled / FRACTION_SCALE);
+
+        if (fraction != 0) {
+            this.append('.');
+
+            for (long divisor = FRACTION_SCALE / 10; divisor > 0 && fraction > 0; divisor /= 10) {
+                this.append((char) ('0' + fraction / divisor));
+                fraction %= divisor;
+            }
+        }
+
+        return this;
+    }
+
+    private void ensure(int extra) {
+        if (this.length + extra > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + extra));
+        }
+    }
+
+    private static void reverse(byte[] bytes, int from, int to) {
+        while (from < to) {
+            byte temp = bytes[from];
+
+            bytes[from ++] = bytes[to];
+            bytes[to --] = temp;
+        }
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,25 @@
+package net.lostluma.battery.impl.simulation;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.simulation.Simulation;
+import net.lostluma.battery.api.spi.Backend;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+@ApiStatus.Internal
+public final class SimulatedBackend implements Backend {
+    @Override
+    public @NotNull String name() {
+        return "simulated";
+    }
+
+    @Override
+    public boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public @NotNull Manager create() {
+        return new SimulatedManager(Simulation.builder().build());
+    }
+}
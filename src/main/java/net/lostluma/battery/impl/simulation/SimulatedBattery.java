@@ -0,0 +1,175 @@
+package net.lostluma.battery.impl.simulation;
+
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.api.simulation.Simulation;
+import net.lostluma.battery.impl.AbstractBattery;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+@ApiStatus.Internal
+public final class SimulatedBattery extends AbstractBattery {
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    // Charging power tapers off linearly above this state of charge
+    private static final float TAPER = 0.8f;
+
+    final SimulatedManager manager;
+
+    private final Simulation simulation;
+    private final SplittableRandom random;
+    private final long step;
+
+    private final float energyFullDesign;
+    private final float energyFull;
+
+    private State state;
+    private float energy;
+    private double discharged;
+    private long time;
+
+    SimulatedBattery(SimulatedManager manager, int index) {
+        super(manager, key(index), Technology.LITHIUM_ION, "Simulated", "Simulated Battery", key(index));
+
+        Simulation simulation = manager.simulation;
+        Duration step = simulation.timeStep();
+
+        this.manager = manager;
+        this.simulation = simulation;
+
+        // Independent of other batteries, so the fleet size doesn't change individual behavior
+        this.random = new SplittableRandom(simulation.seed() * 31 + index);
+        this.step = step == null ? 0 : step.toNanos();
+
+        this.energyFullDesign = simulation.capacity();
+        this.energyFull = this.energyFullDesign * (0.8f + 0.2f * (float) this.random.nextDouble());
+
+        this.state = this.random.nextBoolean() ? State.DISCHARGING : State.CHARGING;
+        this.energy = this.energyFull * (float) this.random.nextDouble();
+        this.time = System.nanoTime();
+
+        this.publish(0.0f);
+    }
+
+    private static String key(int index) {
+        return "SIM" + index;
+    }
+
+    @Override
+    public void update() throws IOException, RuntimeException {
+        this.enter();
+        this.lock.lock();
+
+        try {
+            if (!this.isPresent()) {
+                throw new IOException("Battery " + this.key + " is no longer present.");
+            }
+
+            if (this.random.nextDouble() < this.simulation.failureProbability()) {
+                throw new IOException("Simulated failure reading battery " + this.key + ".");
+            }
+
+            this.publish(this.advance());
+        } finally {
+            this.lock.unlock();
+            this.exit();
+        }
+    }
+
+    void remove() {
+        this.markRemoved();
+    }
+
+    // Moves the simulation forward, returns the current power in watts
+    private float advance() {
+        long now = System.nanoTime();
+        double seconds;
+
+        if (this.step > 0) {
+            seconds = this.step / 1_000_000_000.0;
+        } else {
+            seconds = (now - this.time) / 1_000_000_000.0 * this.simulation.timeScale();
+        }
+
+        this.time = now;
+
+        double hours = seconds / SECONDS_PER_HOUR;
+        double transitions = this.simulation.transitionsPerHour() * hours;
+
+        // Chance of at least one plug event within this step
+        if (transitions > 0.0 && this.random.nextDouble() < 1.0 - Math.exp(-transitions)) {
+            this.state = this.state == State.CHARGING || this.state == State.FULL ? State.DISCHARGING : State.CHARGING;
+        }
+
+        float jitter = 1.0f + this.simulation.noise() * (float) (this.random.nextDouble() * 2.0 - 1.0);
+        float power;
+
+        switch (this.state) {
+            case DISCHARGING:
+                power = this.simulation.dischargePower() * jitter;
+                this.energy -= (float) (power * hours);
+                this.discharged += power * hours;
+
+                if (this.energy <= 0.0f) {
+                    this.energy = 0.0f;
+                    this.state = State.EMPTY;
+                }
+
+                break;
+            case CHARGING:
+                float stateOfCharge = this.energy / this.energyFull;
+                power = this.simulation.chargePower() * jitter;
+
+                if (stateOfCharge > TAPER) {
+                    power *= Math.max((1.0f - stateOfCharge) / (1.0f - TAPER), 0.05f);
+                }
+
+                this.energy += (float) (power * hours);
+
+                if (this.energy >= this.energyFull) {
+                    this.energy = this.energyFull;
+                    this.state = State.FULL;
+                }
+
+                break;
+            default:
+                power = 0.0f;
+        }
+
+        return power;
+    }
+
+    private void publish(float power) {
+        float stateOfCharge = this.energy / this.energyFull;
+        float voltage = this.simulation.curve().voltage(stateOfCharge);
+
+        float timeToFull = Float.NaN;
+        float timeToEmpty = Float.NaN;
+
+        if (power > 0.0f) {
+            if (this.state == State.CHARGING) {
+                timeToFull = (float) ((this.energyFull - this.energy) / power * SECONDS_PER_HOUR);
+            } else if (this.state == State.DISCHARGING) {
+                timeToEmpty = (float) (this.energy / power * SECONDS_PER_HOUR);
+            }
+        }
+
+        this.publish(
+            stateOfCharge * 100.0f,
+            this.energy,
+            this.energyFull,
+            this.energyFullDesign,
+            power,
+            voltage,
+            this.energyFull / this.energyFullDesign * 100.0f,
+            this.state,
+            25.0f + power * 0.2f,
+            (long) (this.discharged / this.energyFull),
+            timeToFull,
+            timeToEmpty
+        );
+    }
+}
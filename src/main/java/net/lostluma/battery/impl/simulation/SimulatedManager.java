@@ -0,0 +1,68 @@
+package net.lostluma.battery.impl.simulation;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.simulation.Simulation;
+import net.lostluma.battery.impl.AbstractManager;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Manager of an in-process battery fleet, for testing consumers at scale without any hardware.
+ */
+@ApiStatus.Internal
+public final class SimulatedManager extends AbstractManager<SimulatedBattery> {
+    final Simulation simulation;
+    private final SplittableRandom random;
+
+    // One slot per simulated battery, empty while it is unplugged
+    private final SimulatedBattery[] slots;
+
+    public SimulatedManager(Simulation simulation) {
+        super(SimulatedBattery.class);
+
+        this.simulation = simulation;
+        this.random = new SplittableRandom(simulation.seed());
+        this.slots = new SimulatedBattery[simulation.batteries()];
+
+        for (int index = 0; index < this.slots.length; index++) {
+            this.slots[index] = new SimulatedBattery(this, index);
+        }
+    }
+
+    @Override
+    protected synchronized @NotNull Collection<Battery> enumerate() {
+        double probability = this.simulation.hotplugProbability();
+        List<Battery> batteries = new ArrayList<>(this.slots.length);
+
+        for (int index = 0; index < this.slots.length; index++) {
+            SimulatedBattery battery = this.slots[index];
+
+            if (probability > 0.0 && this.random.nextDouble() < probability) {
+                if (battery != null) {
+                    battery.remove();
+                    battery = null;
+                } else {
+                    battery = new SimulatedBattery(this, index);
+                }
+
+                this.slots[index] = battery;
+            }
+
+            if (battery != null) {
+                batteries.add(battery);
+            }
+        }
+
+        return batteries;
+    }
+
+    @Override
+    protected void free() {
+        // Nothing to free, batteries only live in memory
+    }
+}
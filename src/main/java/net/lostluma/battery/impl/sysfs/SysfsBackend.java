@@ -0,0 +1,27 @@
+package net.lostluma.battery.impl.sysfs;
+
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.spi.Backend;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+@ApiStatus.Internal
+public final class SysfsBackend implements Backend {
+    @Override
+    public @NotNull String name() {
+        return "sysfs";
+    }
+
+    @Override
+    public boolean isSupported() {
+        return Files.isDirectory(SysfsManager.DEFAULT_ROOT);
+    }
+
+    @Override
+    public @NotNull Manager create() throws IOException {
+        return new SysfsManager(SysfsManager.DEFAULT_ROOT);
+    }
+}
@@ -0,0 +1,207 @@
+package net.lostluma.battery.impl.sysfs;
+
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.impl.AbstractBattery;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static net.lostluma.battery.impl.sysfs.SysfsReader.MISSING;
+
+@ApiStatus.Internal
+public final class SysfsBattery extends AbstractBattery {
+    private static final float MICRO = 1_000_000.0f;
+    private static final float SECONDS_PER_HOUR = 3600.0f;
+
+    final SysfsManager manager;
+    final Path directory;
+
+    private final SysfsReader reader;
+
+    // Resolved once, so updating doesn't create any paths
+    private final Path capacity;
+    private final Path energyNow;
+    private final Path energyFull;
+    private final Path energyFullDesign;
+    private final Path chargeNow;
+    private final Path chargeFull;
+    private final Path chargeFullDesign;
+    private final Path powerNow;
+    private final Path currentNow;
+    private final Path voltageNow;
+    private final Path voltageMinDesign;
+    private final Path temperature;
+    private final Path cycleCount;
+    private final Path status;
+
+    private SysfsBattery(SysfsManager manager, Path directory, String key, Technology technology, @Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+        super(manager, key, technology, vendor, model, serialNumber);
+
+        this.manager = manager;
+        this.directory = directory;
+        this.reader = new SysfsReader();
+
+        this.capacity = directory.resolve("capacity");
+        this.energyNow = directory.resolve("energy_now");
+        this.energyFull = directory.resolve("energy_full");
+        this.energyFullDesign = directory.resolve("energy_full_design");
+        this.chargeNow = directory.resolve("charge_now");
+        this.chargeFull = directory.resolve("charge_full");
+        this.chargeFullDesign = directory.resolve("charge_full_design");
+        this.powerNow = directory.resolve("power_now");
+        this.currentNow = directory.resolve("current_now");
+        this.voltageNow = directory.resolve("voltage_now");
+        this.voltageMinDesign = directory.resolve("voltage_min_design");
+        this.temperature = directory.resolve("temp");
+        this.cycleCount = directory.resolve("cycle_count");
+        this.status = directory.resolve("status");
+    }
+
+    static SysfsBattery create(SysfsManager manager, Path directory, String key) throws IOException {
+        Technology technology = parseTechnology(SysfsReader.readString(directory.resolve("technology")));
+
+        String vendor = SysfsReader.readString(directory.resolve("manufacturer"));
+        String model = SysfsReader.readString(directory.resolve("model_name"));
+        String serialNumber = SysfsReader.readString(directory.resolve("serial_number"));
+
+        SysfsBattery battery = new SysfsBattery(manager, directory, key, technology, vendor, model, serialNumber);
+        battery.refresh();
+
+        return battery;
+    }
+
+    @Override
+    public void update() throws IOException, RuntimeException {
+        this.enter();
+        this.lock.lock();
+
+        try {
+            this.refresh();
+        } finally {
+            this.lock.unlock();
+            this.exit();
+        }
+    }
+
+    void remove() {
+        this.markRemoved();
+    }
+
+    // Must be called while holding the lock, or before the battery is shared
+    private void refresh() throws IOException {
+        if (!this.isPresent() || !Files.isDirectory(this.directory)) {
+            throw new IOException("Battery " + this.directory.getFileName() + " is no longer present.");
+        }
+
+        SysfsReader reader = this.reader;
+
+        long microVolts = reader.readLong(this.voltageNow);
+
+        if (microVolts == MISSING) {
+            microVolts = reader.readLong(this.voltageMinDesign);
+        }
+
+        float voltage = microVolts == MISSING ? 0.0f : microVolts / MICRO;
+
+        float energy = this.readEnergy(this.energyNow, this.chargeNow, voltage);
+        float energyFull = this.readEnergy(this.energyFull, this.chargeFull, voltage);
+        float energyFullDesign = this.readEnergy(this.energyFullDesign, this.chargeFullDesign, voltage);
+
+        float energyRate;
+        long microWatts = reader.readLong(this.powerNow);
+
+        if (microWatts != MISSING) {
+            energyRate = Math.abs(microWatts / MICRO);
+        } else {
+            long microAmperes = reader.readLong(this.currentNow);
+            energyRate = microAmperes == MISSING ? 0.0f : Math.abs(microAmperes / MICRO * voltage);
+        }
+
+        float stateOfCharge;
+        long percent = reader.readLong(this.capacity);
+
+        if (percent != MISSING) {
+            stateOfCharge = percent;
+        } else if (energyFull > 0.0f) {
+            stateOfCharge = energy / energyFull * 100.0f;
+        } else {
+            stateOfCharge = 0.0f;
+        }
+
+        float stateOfHealth = energyFullDesign > 0.0f ? energyFull / energyFullDesign * 100.0f : 0.0f;
+
+        State state = reader.readState(this.status);
+
+        long deciCelsius = reader.readLong(this.temperature);
+        float temperature = deciCelsius == MISSING ? Float.NaN : deciCelsius / 10.0f;
+
+        // Both values use the same sentinel
+        long cycleCount = reader.readLong(this.cycleCount);
+
+        float timeToFull = Float.NaN;
+        float timeToEmpty = Float.NaN;
+
+        if (energyRate > 0.0f) {
+            if (state == State.CHARGING) {
+                timeToFull = Math.max(energyFull - energy, 0.0f) / energyRate * SECONDS_PER_HOUR;
+            } else if (state == State.DISCHARGING) {
+                timeToEmpty = energy / energyRate * SECONDS_PER_HOUR;
+            }
+        }
+
+        this.publish(stateOfCharge, energy, energyFull, energyFullDesign, energyRate, voltage, stateOfHealth, state, temperature, cycleCount, timeToFull, timeToEmpty);
+    }
+
+    // Energy in watt-hours, drivers either report energy directly or charge in ampere-hours
+    private float readEnergy(Path energy, Path charge, float voltage) {
+        long microWattHours = this.reader.readLong(energy);
+
+        if (microWattHours != MISSING) {
+            return microWattHours / MICRO;
+        }
+
+        long microAmpereHours = this.reader.readLong(charge);
+
+        if (microAmpereHours != MISSING) {
+            return microAmpereHours / MICRO * voltage;
+        }
+
+        return 0.0f;
+    }
+
+    private static Technology parseTechnology(@Nullable String value) {
+        if (value == null) {
+            return Technology.UNKNOWN;
+        }
+
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "li-ion":
+            case "lion":
+                return Technology.LITHIUM_ION;
+            case "li-poly":
+            case "lipo":
+                return Technology.LITHIUM_POLYMER;
+            case "pb":
+            case "pbac":
+                return Technology.LEAD_ACID;
+            case "nimh":
+                return Technology.NICKEL_METAL_HYDRIDE;
+            case "nicd":
+                return Technology.NICKEL_CADMIUM;
+            case "nizn":
+                return Technology.NICKEL_ZINC;
+            case "life":
+            case "lifepo4":
+                return Technology.LITHIUM_IRON_PHOSPHATE;
+            case "ram":
+                return Technology.RECHARGEABLE_ALKALINE_MANGANESE;
+            default:
+                return Technology.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package net.lostluma.battery.impl.sysfs;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.impl.AbstractManager;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manager which reads the Linux power supply class from sysfs directly, without loading the native library.
+ */
+@ApiStatus.Internal
+public final class SysfsManager extends AbstractManager<SysfsBattery> {
+    public static final Path DEFAULT_ROOT = Paths.get("/sys/class/power_supply");
+
+    private final Path root;
+
+    // Batteries found by the previous enumeration, by their key
+    private Map<String, SysfsBattery> present;
+
+    public SysfsManager(Path root) throws IOException {
+        super(SysfsBattery.class);
+
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Power supply directory " + root + " does not exist.");
+        }
+
+        this.root = root;
+        this.present = Collections.emptyMap();
+    }
+
+    @Override
+    protected synchronized @NotNull Collection<Battery> enumerate() throws IOException {
+        Map<String, SysfsBattery> previous = this.present;
+        Map<String, SysfsBattery> current = new HashMap<>();
+
+        List<Path> paths = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.root)) {
+            for (Path path : stream) {
+                if (!isBattery(path)) {
+                    continue;
+                }
+
+                String key = getKey(path);
+
+                paths.add(path);
+                keys.add(key);
+                occurrences.merge(key, 1, Integer::sum);
+            }
+        }
+
+        for (int index = 0; index < paths.size(); index++) {
+            Path path = paths.get(index);
+            String key = keys.get(index);
+
+            // Same serial number on multiple batteries, fall back to the device path for all of them
+            // Otherwise which battery keeps the plain key would depend on the directory's iteration order
+            if (occurrences.get(key) > 1) {
+                key = key + "/" + path.getFileName();
+            }
+
+            SysfsBattery battery = previous.get(key);
+
+            if (battery == null) {
+                battery = SysfsBattery.create(this, path, key);
+            }
+
+            current.put(key, battery);
+        }
+
+        for (Map.Entry<String, SysfsBattery> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                entry.getValue().remove();
+            }
+        }
+
+        this.present = current;
+        return new ArrayList<>(current.values());
+    }
+
+    @Override
+    protected void free() {
+        // Nothing to free, files are only open while reading them
+    }
+
+    // Identifies a battery by its serial number, or its device path if it has none
+    private static String getKey(Path path) {
+        String serialNumber = SysfsReader.readString(path.resolve("serial_number"));
+        return serialNumber != null ? serialNumber : path.getFileName().toString();
+    }
+
+    private static boolean isBattery(Path path) {
+        // Batteries of peripherals such as mice are scoped to their device
+        return "Battery".equals(SysfsReader.readString(path.resolve("type")))
+            && !"Device".equals(SysfsReader.readString(path.resolve("scope")));
+    }
+}
@@ -0,0 +1,154 @@
+package net.lostluma.battery.impl.sysfs;
+
+import net.lostluma.battery.api.State;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads sysfs attributes into a reused buffer, parsing values without creating intermediate strings.
+ * <p>
+ * Not thread-safe, every battery owns its own reader.
+ */
+@ApiStatus.Internal
+public final class SysfsReader {
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final byte[] CHARGING = bytes("charging");
+    private static final byte[] DISCHARGING = bytes("discharging");
+    private static final byte[] EMPTY = bytes("empty");
+    private static final byte[] FULL = bytes("full");
+
+    // Numeric and status attributes are short, longer content is never a valid value
+    private final ByteBuffer buffer = ByteBuffer.allocate(64);
+
+    /**
+     * @return the attribute's integer value, or {@link #MISSING} if it is absent or malformed.
+     */
+    public long readLong(Path path) {
+        int length = this.read(path);
+
+        if (length <= 0) {
+            return MISSING;
+        }
+
+        byte[] data = this.buffer.array();
+
+        int index = 0;
+        boolean negative = data[0] == '-';
+
+        if (negative) {
+            index ++;
+        }
+
+        if (index == length) {
+            return MISSING;
+        }
+
+        long value = 0;
+
+        for (; index < length; index++) {
+            int digit = data[index] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return MISSING;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the state described by a {@code status} attribute.
+     */
+    public State readState(Path path) {
+        int length = this.read(path);
+
+        if (this.matches(length, DISCHARGING)) {
+            return State.DISCHARGING;
+        } else if (this.matches(length, CHARGING)) {
+            return State.CHARGING;
+        } else if (this.matches(length, FULL)) {
+            return State.FULL;
+        } else if (this.matches(length, EMPTY)) {
+            return State.EMPTY;
+        } else {
+            return State.UNKNOWN;
+        }
+    }
+
+    /**
+     * Reads an attribute as a string. Only intended for identifying attributes, which are read once.
+     *
+     * @return the trimmed attribute value, or null if it is absent or blank.
+     */
+    public static @Nullable String readString(Path path) {
+        byte[] data;
+
+        try {
+            data = Files.readAllBytes(path);
+        } catch (IOException e) {
+            return null;
+        }
+
+        String value = new String(data, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Returns the amount of bytes read without trailing whitespace, or -1 if the attribute is unavailable
+    private int read(Path path) {
+        ByteBuffer buffer = this.buffer;
+        buffer.clear();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Attributes are usually read in one go
+            }
+        } catch (IOException e) {
+            return -1; // Missing, or the driver failed to provide a value
+        }
+
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        byte[] data = buffer.array();
+        int length = buffer.position();
+
+        while (length > 0 && data[length - 1] <= ' ') {
+            length --;
+        }
+
+        return length;
+    }
+
+    private boolean matches(int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+
+        byte[] data = this.buffer.array();
+
+        for (int index = 0; index < length; index++) {
+            // Expected values are lowercase ASCII
+            if ((data[index] | 0x20) != expected[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -3,7 +3,6 @@ package net.lostluma.battery.impl.util;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -11,17 +10,19 @@ import java.security.NoSuchAlgorithmException;
 @ApiStatus.Internal
 public class CryptoUtil {
     public static String sha512(Path path) throws IOException {
-        MessageDigest digest;
-        byte[] data = Files.readAllBytes(path);
+        MessageDigest digest = sha512();
 
+        // Stream the file, so it never needs to fit into memory at once
+        FileUtil.digest(path, digest);
+        return toHex(digest.digest());
+    }
+
+    public static MessageDigest sha512() {
         try {
-            digest = MessageDigest.getInstance("SHA-512");
+            return MessageDigest.getInstance("SHA-512");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("No SHA512 algorithm found.", e);
         }
-
-        digest.update(data);
-        return toHex(digest.digest());
     }
 
     public static String toHex(byte[] data) {
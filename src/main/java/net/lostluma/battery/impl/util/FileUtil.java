@@ -0,0 +1,76 @@
+package net.lostluma.battery.impl.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+@ApiStatus.Internal
+public class FileUtil {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static Path getPartialPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".part");
+    }
+
+    public static OpenOption[] getWriteOptions(boolean append) {
+        if (append) {
+            return new OpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND };
+        } else {
+            return new OpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING };
+        }
+    }
+
+    public static void digest(Path path, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Copies the stream into the destination, which is only replaced once the data matches the hash.
+     *
+     * @return whether the data was valid and has been moved into place.
+     */
+    public static boolean copyVerified(InputStream stream, Path into, String hash) throws IOException {
+        Path partial = getPartialPath(into);
+        MessageDigest digest = CryptoUtil.sha512();
+
+        try (InputStream input = new DigestInputStream(stream, digest)) {
+            Files.copy(input, partial, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (!hash.equals(CryptoUtil.toHex(digest.digest()))) {
+            Files.delete(partial);
+            return false;
+        }
+
+        moveIntoPlace(partial, into);
+        return true;
+    }
+
+    // Other processes either see the old file or the complete new one
+    public static void moveIntoPlace(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -7,49 +7,97 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 
 @ApiStatus.Internal
 public class HttpUtil {
+    private static final int BUFFER_SIZE = 64 * 1024;
     private static final Duration TIMEOUT = Duration.of(2, ChronoUnit.MINUTES);
 
-    public static void download(URL url, Path into) throws IOException {
+    /**
+     * Downloads a file, and moves it into place once its hash is verified.
+     * <p>
+     * Data is written to a {@code .part} file next to the destination first.
+     * Should the download be interrupted, the next attempt resumes from where it left off if the server supports it.
+     */
+    public static void download(URL url, Path into, String hash) throws IOException {
+        Path partial = FileUtil.getPartialPath(into);
+        long existing = Files.exists(partial) ? Files.size(partial) : 0;
+
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
+        connection.setConnectTimeout((int) TIMEOUT.toMillis());
         connection.setReadTimeout((int) TIMEOUT.toMillis());
         connection.setRequestProperty("User-Agent", "Battery/" + Constants.VERSION);
 
+        if (existing > 0) {
+            connection.setRequestProperty("Range", "bytes=" + existing + "-");
+        }
+
         connection.connect();
         int status = connection.getResponseCode();
 
-        if (status != 200) {
+        boolean resume;
+
+        if (status == 206 && isContentRangeFrom(connection, existing)) {
+            resume = true;
+        } else if (status == 200) {
+            resume = false; // Server ignored the range, start over
+        } else if ((status == 206 || status == 416) && existing > 0) {
+            // The partial file is as large as or larger than the library, or the server sent another range,
+            // either way it can't be resumed and is downloaded from the start again
+            connection.disconnect();
+            Files.delete(partial);
+
+            download(url, into, hash);
+            return;
+        } else {
             throw new IOException("Library download error: " + status);
         }
 
-        int size;
-        String length = connection.getHeaderField("Content-Length");
+        long expected = connection.getContentLengthLong();
+        MessageDigest digest = CryptoUtil.sha512();
 
-        try {
-            size = Integer.parseInt(length);
-        } catch (NumberFormatException e) {
-            throw new IOException("Received invalid Content-Length header!");
+        if (resume) {
+            FileUtil.digest(partial, digest);
         }
 
-        try (InputStream stream = connection.getInputStream()) {
-            int input;
-            int index = 0;
+        long written = 0;
+
+        try (InputStream stream = connection.getInputStream(); FileChannel channel = FileChannel.open(partial, FileUtil.getWriteOptions(resume))) {
+            int read;
+            byte[] data = new byte[BUFFER_SIZE];
 
-            byte[] data = new byte[size];
+            while ((read = stream.read(data)) != -1) {
+                digest.update(data, 0, read);
+                channel.write(ByteBuffer.wrap(data, 0, read));
 
-            while ((input = stream.read()) != -1) {
-                data[index] = (byte) input;
-                index ++;
+                written += read;
             }
+        }
+
+        // Keep the partial file, so the next attempt can resume
+        if (expected != -1 && written != expected) {
+            throw new IOException("Library download ended early.");
+        }
 
-            Files.write(into, data);
+        if (!hash.equals(CryptoUtil.toHex(digest.digest()))) {
+            Files.delete(partial);
+            throw new IOException("Downloaded library could not be validated.");
         }
+
+        FileUtil.moveIntoPlace(partial, into);
+    }
+
+    private static boolean isContentRangeFrom(HttpURLConnection connection, long start) {
+        String range = connection.getHeaderField("Content-Range");
+        return range != null && range.startsWith("bytes " + start + "-");
     }
 }
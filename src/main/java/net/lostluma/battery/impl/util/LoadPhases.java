@@ -0,0 +1,16 @@
+package net.lostluma.battery.impl.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Time spent in each phase of loading the native library, in nanoseconds.
+ * <p>
+ * Phases which were skipped stay at zero.
+ */
+@ApiStatus.Internal
+public final class LoadPhases {
+    public long metadata;
+    public long validation;
+    public long installation; // Extracting or downloading
+    public long linking;
+}
@@ -1,40 +1,81 @@
 package net.lostluma.battery.impl.util;
 
 import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.api.metrics.Operation;
 import net.lostluma.battery.impl.Constants;
+import net.lostluma.battery.impl.instrument.Events;
+import net.lostluma.battery.impl.instrument.Probes;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Properties;
 
 @ApiStatus.Internal
 public class NativeUtil {
-    private static Path cacheDir = null;
-    private static boolean download = true;
+    private static volatile Path cacheDir = null;
+    private static volatile boolean download = true;
+    private static volatile @Nullable Path libraryPath = null;
 
-    private static boolean isLoaded = false;
+    // Written while holding the class lock, so concurrent first callers only load once
+    private static volatile boolean isLoaded = false;
+    private static final Object INSTALL_LOCK = new Object();
 
     private static final String METADATA = "/battery.natives.properties";
     private static final String BASE_URL = "https://files.lostluma.net/battery-jni/" + Constants.NATIVES_VERSION + "/";
 
     public static void load() throws LibraryLoadError {
+        load(new LoadPhases());
+    }
+
+    /**
+     * Installs and loads the library if that didn't happen yet.
+     *
+     * @param phases receives the time spent in each phase, stays untouched if the library was loaded already.
+     */
+    public static void load(LoadPhases phases) throws LibraryLoadError {
         if (isLoaded) {
             return;
         }
 
-        try {
-            load0();
-            isLoaded = true;
-        } catch (IOException e) {
-            throw new LibraryLoadError(e);
+        synchronized (NativeUtil.class) {
+            if (isLoaded) {
+                return;
+            }
+
+            long started = Probes.start();
+            Object event = Events.begin(Operation.LIBRARY_LOAD);
+
+            try {
+                Path path = libraryPath != null ? libraryPath : install(phases);
+                long start = System.nanoTime();
+
+                System.load(path.toAbsolutePath().toString());
+
+                phases.linking = System.nanoTime() - start;
+                isLoaded = true;
+            } catch (IOException | UnsatisfiedLinkError e) {
+                throw new LibraryLoadError(e);
+            } finally {
+                Events.commitLoad(event, phases);
+                Probes.stop(Operation.LIBRARY_LOAD, started, !isLoaded);
+            }
         }
     }
 
+    public static boolean isLoaded() {
+        return isLoaded;
+    }
+
     public static void setCacheDir(Path path) {
         cacheDir = path;
     }
@@ -43,7 +84,22 @@ public class NativeUtil {
         download = value;
     }
 
-    private static void load0() throws IOException, LibraryLoadError{
+    /**
+     * Load the library from a path as is, without installing or validating it.
+     * <p>
+     * Intended for benchmarking and testing locally built libraries.
+     */
+    public static void setLibraryPath(@Nullable Path path) {
+        libraryPath = path;
+    }
+
+    /**
+     * Makes sure a valid library is present in the cache directory, without loading it.
+     *
+     * @return the path of the library.
+     */
+    public static Path install(LoadPhases phases) throws IOException, LibraryLoadError {
+        long start = System.nanoTime();
         Properties properties = new Properties();
 
         try (InputStream stream = NativeUtil.class.getResourceAsStream(METADATA)) {
@@ -64,31 +120,31 @@ public class NativeUtil {
         String hash = properties.getProperty(base + ".hash");
 
         Path path;
+        Path directory = cacheDir;
 
-        if (cacheDir != null) {
-            path = cacheDir.resolve(name);
+        if (directory != null) {
+            path = directory.resolve(name);
         } else {
             path = Constants.DEFAULT_CACHE_DIR.resolve(name);
         }
 
-        if (!isLibraryValid(path, hash)) {
-            Files.createDirectories(path.getParent());
-            boolean copied = copyFileFromJar(name, path);
+        phases.metadata = System.nanoTime() - start;
+        start = System.nanoTime();
 
-            if (!copied && download) {
-                HttpUtil.download(new URL(BASE_URL + name), path);
-            }
+        boolean valid = isLibraryValid(path, hash);
 
-            if (!isLibraryValid(path, hash)) {
-                throw new LibraryLoadError("Native library could not be validated.");
-            }
-        }
+        phases.validation = System.nanoTime() - start;
+
+        if (!valid) {
+            start = System.nanoTime();
+
+            Files.createDirectories(path.getParent());
+            extractOrDownload(name, path, hash);
 
-        try {
-            System.load(path.toAbsolutePath().toString());
-        } catch (UnsatisfiedLinkError e) {
-            throw new LibraryLoadError(e);
+            phases.installation = System.nanoTime() - start;
         }
+
+        return path;
     }
 
     private static String getArch() {
@@ -115,14 +171,94 @@ public class NativeUtil {
     }
 
     private static boolean isLibraryValid(Path path, String hash) throws IOException {
-        return Files.exists(path) && hash.equals(CryptoUtil.sha512(path));
+        if (!Files.exists(path)) {
+            return false;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        if (isRecordValid(path, attributes, hash)) {
+            return true;
+        }
+
+        if (!hash.equals(CryptoUtil.sha512(path))) {
+            return false;
+        }
+
+        writeRecord(path, attributes, hash);
+        return true;
+    }
+
+    // The record lives next to the library, so anybody able to tamper with it could also replace the library itself
+    private static Path getRecordPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".verified");
+    }
+
+    // Whether the library is unchanged since its hash was last verified
+    private static boolean isRecordValid(Path path, BasicFileAttributes attributes, String hash) {
+        Properties record = new Properties();
+
+        try (InputStream stream = Files.newInputStream(getRecordPath(path))) {
+            record.load(stream);
+        } catch (IOException e) {
+            return false;
+        }
+
+        return hash.equals(record.getProperty("hash"))
+            && String.valueOf(attributes.size()).equals(record.getProperty("size"))
+            && String.valueOf(attributes.lastModifiedTime().toMillis()).equals(record.getProperty("mtime"))
+            && String.valueOf(attributes.fileKey()).equals(record.getProperty("key"));
+    }
+
+    private static void writeRecord(Path path, BasicFileAttributes attributes, String hash) {
+        Properties record = new Properties();
+
+        record.setProperty("hash", hash);
+        record.setProperty("size", String.valueOf(attributes.size()));
+        record.setProperty("mtime", String.valueOf(attributes.lastModifiedTime().toMillis()));
+        record.setProperty("key", String.valueOf(attributes.fileKey()));
+
+        try (OutputStream stream = Files.newOutputStream(getRecordPath(path))) {
+            record.store(stream, null);
+        } catch (IOException e) {
+            // Only a cache, the library is verified by hashing it next time
+        }
+    }
+
+    // Only one thread of one process may install into the cache directory at a time
+    @SuppressWarnings("try") // The file lock is only held, never referenced
+    private static void extractOrDownload(String name, Path path, String hash) throws IOException {
+        Path lockPath = path.resolveSibling(".install.lock");
+
+        // File locks are held by the whole JVM, so threads need to be excluded separately
+        synchronized (INSTALL_LOCK) {
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+                // Another process may have installed the library while we were waiting
+                if (isLibraryValid(path, hash)) {
+                    return;
+                }
+
+                boolean installed = copyFileFromJar(name, path, hash);
+
+                if (!installed && download) {
+                    HttpUtil.download(new URL(BASE_URL + name), path, hash);
+                    installed = true;
+                }
+
+                if (!installed) {
+                    throw new LibraryLoadError("Native library could not be validated.");
+                }
+
+                // The hash was verified while installing
+                writeRecord(path, Files.readAttributes(path, BasicFileAttributes.class), hash);
+            }
+        }
     }
 
-    private static boolean copyFileFromJar(String name, Path destination) throws IOException {
+    private static boolean copyFileFromJar(String name, Path destination, String hash) throws IOException {
         try (InputStream stream = NativeUtil.class.getResourceAsStream("/" + name)) {
             if (stream != null) {
-                Files.copy(stream, destination, StandardCopyOption.REPLACE_EXISTING);
-                return true;
+                return FileUtil.copyVerified(stream, destination, hash);
             }
         }
 
@@ -0,0 +1,40 @@
+package net.lostluma.battery.impl.instrument;
+
+import net.lostluma.battery.api.metrics.Operation;
+import net.lostluma.battery.impl.util.LoadPhases;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Emits Flight Recorder events.
+ * <p>
+ * Runtimes may be linked without the {@code jdk.jfr} module, in which case this does nothing like on Java 8.
+ */
+@ApiStatus.Internal
+public final class Events {
+    // Checked once, event classes must not be loaded at all without the module
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private Events() {
+    }
+
+    /**
+     * @return the started event, or null if it is not recorded.
+     */
+    public static @Nullable Object begin(Operation operation) {
+        return AVAILABLE ? FlightEvents.begin(operation) : null;
+    }
+
+    public static void commit(@Nullable Object event, int batteries, int failures) {
+        // Events are only ever created while the module is available
+        if (event != null) {
+            FlightEvents.commit(event, batteries, failures);
+        }
+    }
+
+    public static void commitLoad(@Nullable Object event, LoadPhases phases) {
+        if (event != null) {
+            FlightEvents.commitLoad(event, phases);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.lostluma.battery.impl.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import net.lostluma.battery.api.metrics.Operation;
+import net.lostluma.battery.impl.util.LoadPhases;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Flight Recorder events, only loaded once the {@code jdk.jfr} module is known to be available.
+ */
+final class FlightEvents {
+    private static final EventType[] TYPES = new EventType[Operation.values().length];
+
+    static {
+        TYPES[Operation.LIBRARY_LOAD.ordinal()] = EventType.getEventType(LibraryLoadEvent.class);
+        TYPES[Operation.MANAGER_CREATION.ordinal()] = EventType.getEventType(ManagerCreationEvent.class);
+        TYPES[Operation.ENUMERATION.ordinal()] = EventType.getEventType(EnumerationEvent.class);
+        TYPES[Operation.REFRESH.ordinal()] = EventType.getEventType(RefreshEvent.class);
+        TYPES[Operation.UPDATE.ordinal()] = EventType.getEventType(UpdateEvent.class);
+        TYPES[Operation.AGGREGATION.ordinal()] = EventType.getEventType(AggregationEvent.class);
+    }
+
+    private FlightEvents() {
+    }
+
+    static @Nullable Object begin(Operation operation) {
+        // Avoid allocating while no recording is interested in the event
+        if (!TYPES[operation.ordinal()].isEnabled()) {
+            return null;
+        }
+
+        Event event;
+
+        switch (operation) {
+            case LIBRARY_LOAD:
+                event = new LibraryLoadEvent();
+                break;
+            case MANAGER_CREATION:
+                event = new ManagerCreationEvent();
+                break;
+            case ENUMERATION:
+                event = new EnumerationEvent();
+                break;
+            case REFRESH:
+                event = new RefreshEvent();
+                break;
+            case AGGREGATION:
+                event = new AggregationEvent();
+                break;
+            default:
+                event = new UpdateEvent();
+        }
+
+        event.begin();
+        return event;
+    }
+
+    static void commit(@Nullable Object event, int batteries, int failures) {
+        if (event instanceof OperationEvent) {
+            OperationEvent operation = (OperationEvent) event;
+
+            operation.batteries = batteries;
+            operation.failures = failures;
+            operation.commit();
+        }
+    }
+
+    static void commitLoad(@Nullable Object event, LoadPhases phases) {
+        if (event instanceof LibraryLoadEvent) {
+            LibraryLoadEvent load = (LibraryLoadEvent) event;
+
+            load.metadata = phases.metadata;
+            load.validation = phases.validation;
+            load.installation = phases.installation;
+            load.linking = phases.linking;
+            load.commit();
+        }
+    }
+
+    @Name("net.lostluma.battery.LibraryLoad")
+    @Label("Library Load")
+    @Category("Battery")
+    static final class LibraryLoadEvent extends Event {
+        @Label("Metadata")
+        @Timespan
+        long metadata;
+
+        @Label("Validation")
+        @Timespan
+        long validation;
+
+        @Label("Extraction or Download")
+        @Timespan
+        long installation;
+
+        @Label("Linking")
+        @Timespan
+        long linking;
+    }
+
+    abstract static class OperationEvent extends Event {
+        @Label("Batteries")
+        int batteries;
+
+        @Label("Failures")
+        int failures;
+    }
+
+    @Name("net.lostluma.battery.ManagerCreation")
+    @Label("Manager Creation")
+    @Category("Battery")
+    static final class ManagerCreationEvent extends OperationEvent {
+    }
+
+    @Name("net.lostluma.battery.Enumeration")
+    @Label("Enumeration")
+    @Category("Battery")
+    static final class EnumerationEvent extends OperationEvent {
+    }
+
+    @Name("net.lostluma.battery.Refresh")
+    @Label("Refresh")
+    @Category("Battery")
+    static final class RefreshEvent extends OperationEvent {
+    }
+
+    @Name("net.lostluma.battery.Update")
+    @Label("Update")
+    @Category("Battery")
+    static final class UpdateEvent extends OperationEvent {
+    }
+
+    @Name("net.lostluma.battery.Aggregation")
+    @Label("Aggregation")
+    @Category("Battery")
+    static final class AggregationEvent extends OperationEvent {
+    }
+}
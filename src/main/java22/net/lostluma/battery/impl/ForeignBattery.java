@@ -0,0 +1,82 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Technology;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+@ApiStatus.Internal
+public final class ForeignBattery extends AbstractBattery {
+    final ForeignManager manager;
+    final MemorySegment ptr;
+
+    // Readings are written into this segment by the native library, laid out like the JNI buffer
+    // It belongs to the battery's own arena, which is closed together with the native battery
+    private final Arena arena;
+    final MemorySegment reading;
+
+    ForeignBattery(ForeignManager manager, MemorySegment ptr, Arena arena, MemorySegment reading, String key, Technology technology, @Nullable String vendor, @Nullable String model, @Nullable String serialNumber) {
+        super(manager, key, technology, vendor, model, serialNumber);
+
+        this.manager = manager;
+        this.ptr = ptr;
+        this.arena = arena;
+        this.reading = reading;
+    }
+
+    @Override
+    public void update() throws IOException, RuntimeException {
+        this.enter();
+
+        this.lock.lock();
+
+        try {
+            // The native battery is freed once it is no longer present
+            if (!this.isPresent()) {
+                throw new IOException("Battery is no longer present.");
+            }
+
+            this.manager.library.refresh(this.manager.ptr, this.ptr, this.reading);
+            this.publish();
+        } finally {
+            this.lock.unlock();
+            this.exit();
+        }
+    }
+
+    // Frees the native battery and its reading, must be called while holding the lock
+    void release() {
+        if (this.isPresent()) {
+            this.markRemoved();
+            this.manager.library.drop(this.ptr);
+            this.arena.close();
+        }
+    }
+
+    // Captures the reading most recently written by the native library
+    void publish() {
+        MemorySegment reading = this.reading;
+
+        this.publish(
+            reading.get(JAVA_FLOAT, Reading.STATE_OF_CHARGE),
+            reading.get(JAVA_FLOAT, Reading.ENERGY),
+            reading.get(JAVA_FLOAT, Reading.ENERGY_FULL),
+            reading.get(JAVA_FLOAT, Reading.ENERGY_FULL_DESIGN),
+            reading.get(JAVA_FLOAT, Reading.ENERGY_RATE),
+            reading.get(JAVA_FLOAT, Reading.VOLTAGE),
+            reading.get(JAVA_FLOAT, Reading.STATE_OF_HEALTH),
+            Reading.STATES[reading.get(JAVA_INT, Reading.STATE)],
+            reading.get(JAVA_FLOAT, Reading.TEMPERATURE),
+            reading.get(JAVA_LONG, Reading.CYCLE_COUNT),
+            reading.get(JAVA_FLOAT, Reading.TIME_TO_FULL),
+            reading.get(JAVA_FLOAT, Reading.TIME_TO_EMPTY)
+        );
+    }
+}
@@ -0,0 +1,258 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.impl.util.LoadPhases;
+import net.lostluma.battery.impl.util.NativeUtil;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Bindings to the C ABI of the native library, see {@code ffi.rs}.
+ * <p>
+ * Sizes are passed as longs, as the library is only built for 64-bit platforms.
+ */
+final class ForeignLibrary {
+    static final int VENDOR = 0;
+    static final int MODEL = 1;
+    static final int SERIAL_NUMBER = 2;
+
+    static final int REFRESH_ERROR_CAPACITY = 256;
+
+    private static final int ERROR_CAPACITY = 512;
+
+    private static volatile ForeignLibrary instance = null;
+
+    private final MethodHandle lastError;
+    private final MethodHandle managerCreate;
+    private final MethodHandle managerDrop;
+    private final MethodHandle managerBatteries;
+    private final MethodHandle managerAggregate;
+    private final MethodHandle drop;
+    private final MethodHandle string;
+    private final MethodHandle technology;
+    private final MethodHandle read;
+    private final MethodHandle refresh;
+    private final MethodHandle refreshAll;
+
+    private ForeignLibrary(SymbolLookup lookup) {
+        Linker linker = Linker.nativeLinker();
+
+        this.lastError = bind(linker, lookup, "battery_last_error", FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_LONG));
+        this.managerCreate = bind(linker, lookup, "battery_manager_create", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        this.managerDrop = bind(linker, lookup, "battery_manager_drop", FunctionDescriptor.ofVoid(ADDRESS));
+        this.managerBatteries = bind(linker, lookup, "battery_manager_batteries", FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS, JAVA_LONG));
+        this.managerAggregate = bind(linker, lookup, "battery_manager_aggregate", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+        this.drop = bind(linker, lookup, "battery_drop", FunctionDescriptor.ofVoid(ADDRESS));
+        this.string = bind(linker, lookup, "battery_string", FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_INT, ADDRESS, JAVA_LONG));
+        this.technology = bind(linker, lookup, "battery_technology", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        this.read = bind(linker, lookup, "battery_read", FunctionDescriptor.ofVoid(ADDRESS, ADDRESS));
+        this.refresh = bind(linker, lookup, "battery_refresh", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS));
+        this.refreshAll = bind(linker, lookup, "battery_refresh_all", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS, ADDRESS, ADDRESS, JAVA_LONG, JAVA_LONG));
+    }
+
+    /**
+     * Installs the library if necessary, and binds its functions once.
+     */
+    static ForeignLibrary get() throws IOException, LibraryLoadError {
+        ForeignLibrary library = instance;
+
+        if (library != null) {
+            return library;
+        }
+
+        synchronized (ForeignLibrary.class) {
+            if (instance == null) {
+                Path path = NativeUtil.install(new LoadPhases());
+
+                // Stays loaded for the lifetime of the JVM, like libraries loaded using JNI
+                instance = new ForeignLibrary(SymbolLookup.libraryLookup(path, Arena.global()));
+            }
+
+            return instance;
+        }
+    }
+
+    MemorySegment createManager() throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment out = arena.allocate(ADDRESS);
+            int status;
+
+            try {
+                status = (int) this.managerCreate.invokeExact(out);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+
+            this.check(status);
+            return out.get(ADDRESS, 0);
+        }
+    }
+
+    void dropManager(MemorySegment manager) {
+        try {
+            this.managerDrop.invokeExact(manager);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the amount of batteries found, of which at most {@code capacity} handles were written.
+     */
+    long batteries(MemorySegment manager, MemorySegment out, long capacity) throws IOException {
+        long count;
+
+        try {
+            count = (long) this.managerBatteries.invokeExact(manager, out, capacity);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+
+        if (count < 0) {
+            throw new IOException(this.lastError());
+        }
+
+        return count;
+    }
+
+    void aggregate(MemorySegment manager, MemorySegment out) throws IOException {
+        int status;
+
+        try {
+            status = (int) this.managerAggregate.invokeExact(manager, out);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+
+        this.check(status);
+    }
+
+    void drop(MemorySegment battery) {
+        try {
+            this.drop.invokeExact(battery);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param buffer scratch memory for copying the value.
+     * @return the attribute, or null if the battery doesn't have it.
+     */
+    String string(MemorySegment battery, int attribute, MemorySegment buffer) {
+        long length;
+
+        try {
+            length = (long) this.string.invokeExact(battery, attribute, buffer, buffer.byteSize());
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+
+        if (length < 0) {
+            return null;
+        } else if (length > buffer.byteSize()) {
+            try (Arena arena = Arena.ofConfined()) {
+                return this.string(battery, attribute, arena.allocate(length));
+            }
+        }
+
+        return new String(buffer.asSlice(0, length).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    int technology(MemorySegment battery) {
+        try {
+            return (int) this.technology.invokeExact(battery);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    void read(MemorySegment battery, MemorySegment reading) {
+        try {
+            this.read.invokeExact(battery, reading);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    void refresh(MemorySegment manager, MemorySegment battery, MemorySegment reading) throws IOException {
+        int status;
+
+        try {
+            status = (int) this.refresh.invokeExact(manager, battery, reading);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+
+        this.check(status);
+    }
+
+    /**
+     * @param errors receives the message of each failure, {@link #REFRESH_ERROR_CAPACITY} bytes per battery.
+     * @return how many batteries failed to refresh, their status is non-zero.
+     */
+    int refreshAll(MemorySegment manager, MemorySegment batteries, MemorySegment readings, MemorySegment statuses, MemorySegment errors, long count) {
+        try {
+            return (int) this.refreshAll.invokeExact(manager, batteries, readings, statuses, errors, (long) REFRESH_ERROR_CAPACITY, count);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @return the message of a battery which failed to refresh in bulk.
+     */
+    static String refreshError(MemorySegment errors, long index, int status) {
+        // Status is the negative of one plus the full length of the message
+        long length = Math.min(-(long) status - 1, REFRESH_ERROR_CAPACITY);
+        MemorySegment slot = errors.asSlice(index * REFRESH_ERROR_CAPACITY, length);
+
+        return new String(slot.toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    // Message of the most recent failure on the calling thread
+    String lastError() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment buffer = arena.allocate(ERROR_CAPACITY);
+            long length = (long) this.lastError.invokeExact(buffer, (long) ERROR_CAPACITY);
+
+            return new String(buffer.asSlice(0, Math.min(length, ERROR_CAPACITY)).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private void check(int status) throws IOException {
+        if (status != 0) {
+            throw new IOException(this.lastError());
+        }
+    }
+
+    private static MethodHandle bind(Linker linker, SymbolLookup lookup, String name, FunctionDescriptor descriptor) {
+        MemorySegment symbol = lookup.find(name).orElseThrow(() -> new LibraryLoadError("Native library does not export " + name + "."));
+        return linker.downcallHandle(symbol, descriptor);
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else {
+            return new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.PowerSummary;
+import net.lostluma.battery.api.Technology;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Manager which calls the native library through the Foreign Function and Memory API.
+ * <p>
+ * Readings are written directly into memory segments, without any calls back into Java.
+ * Native batteries are freed as soon as they disappear, instead of once they are garbage collected.
+ */
+@ApiStatus.Internal
+public final class ForeignManager extends AbstractManager<ForeignBattery> {
+    private static final int STRING_CAPACITY = 256;
+    private static final Technology[] TECHNOLOGIES = Technology.values();
+
+    final ForeignLibrary library;
+    final MemorySegment ptr;
+
+    // Batteries found by the previous enumeration, by their key
+    private final ReentrantLock enumeration;
+    private volatile Map<String, ForeignBattery> present;
+
+    ForeignManager() throws IOException {
+        super(ForeignBattery.class);
+
+        this.library = ForeignLibrary.get();
+        this.ptr = this.library.createManager();
+
+        this.enumeration = new ReentrantLock();
+        this.present = Collections.emptyMap();
+    }
+
+    @Override
+    protected @NotNull Collection<Battery> enumerate() throws IOException {
+        this.enumeration.lock();
+
+        try (Arena arena = Arena.ofConfined()) {
+            Map<String, ForeignBattery> previous = this.present;
+            Map<String, ForeignBattery> current = new HashMap<>();
+
+            long capacity = Math.max(previous.size() + 4, 8);
+            MemorySegment handles;
+            long count;
+
+            while (true) {
+                handles = arena.allocate(ADDRESS, capacity);
+                count = this.library.batteries(this.ptr, handles, capacity);
+
+                if (count <= capacity) {
+                    break;
+                }
+
+                // More batteries than expected, free the partial result and try again
+                for (long index = 0; index < capacity; index++) {
+                    this.library.drop(handles.getAtIndex(ADDRESS, index));
+                }
+
+                capacity = count;
+            }
+
+            MemorySegment text = arena.allocate(STRING_CAPACITY);
+
+            String[] vendors = new String[(int) count];
+            String[] models = new String[(int) count];
+            String[] serialNumbers = new String[(int) count];
+            String[] keys = new String[(int) count];
+
+            for (int index = 0; index < count; index++) {
+                MemorySegment handle = handles.getAtIndex(ADDRESS, index);
+
+                vendors[index] = this.library.string(handle, ForeignLibrary.VENDOR, text);
+                models[index] = this.library.string(handle, ForeignLibrary.MODEL, text);
+                serialNumbers[index] = this.library.string(handle, ForeignLibrary.SERIAL_NUMBER, text);
+
+                keys[index] = BatteryKeys.identity(vendors[index], models[index], serialNumbers[index]);
+            }
+
+            boolean[] unique = BatteryKeys.assign(keys);
+            List<Battery> batteries = new ArrayList<>((int) count);
+
+            for (int index = 0; index < count; index++) {
+                MemorySegment handle = handles.getAtIndex(ADDRESS, index);
+
+                String key = keys[index];
+
+                // Ambiguous keys may belong to another battery than last time, so those are always created anew
+                ForeignBattery battery = unique[index] ? previous.get(key) : null;
+
+                if (battery != null) {
+                    this.library.drop(handle); // Known already, keep using the existing native battery
+                } else {
+                    Technology technology = TECHNOLOGIES[this.library.technology(handle)];
+
+                    // Owned by the battery and closed once it disappears, so hotplugging doesn't accumulate memory
+                    Arena owner = Arena.ofShared();
+                    MemorySegment reading = owner.allocate(Reading.SIZE, Long.BYTES);
+
+                    battery = new ForeignBattery(this, handle, owner, reading, key, technology, vendors[index], models[index], serialNumbers[index]);
+
+                    // Enumerating already read all information, so no refresh is needed
+                    this.library.read(handle, reading);
+                    battery.publish();
+                }
+
+                batteries.add(battery);
+                current.put(key, battery);
+            }
+
+            // Includes batteries with an ambiguous key, which were replaced by a new instance
+            for (ForeignBattery battery : previous.values()) {
+                if (current.get(battery.key) != battery) {
+                    release(battery);
+                }
+            }
+
+            this.present = current;
+            return batteries;
+        } finally {
+            this.enumeration.unlock();
+        }
+    }
+
+    @Override
+    protected @NotNull IOException[] refresh(ForeignBattery[] batteries) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment handles = arena.allocate(ADDRESS, batteries.length);
+            MemorySegment readings = arena.allocate(ADDRESS, batteries.length);
+            MemorySegment statuses = arena.allocate(JAVA_INT, batteries.length);
+            MemorySegment errors = arena.allocate((long) ForeignLibrary.REFRESH_ERROR_CAPACITY * batteries.length);
+
+            for (int index = 0; index < batteries.length; index++) {
+                handles.setAtIndex(ADDRESS, index, batteries[index].ptr);
+                readings.setAtIndex(ADDRESS, index, batteries[index].reading);
+            }
+
+            this.library.refreshAll(this.ptr, handles, readings, statuses, errors, batteries.length);
+            IOException[] failures = new IOException[batteries.length];
+
+            for (int index = 0; index < batteries.length; index++) {
+                int status = statuses.getAtIndex(JAVA_INT, index);
+
+                if (status == 0) {
+                    batteries[index].publish();
+                } else {
+                    failures[index] = new IOException(ForeignLibrary.refreshError(errors, index, status));
+                }
+            }
+
+            return failures;
+        }
+    }
+
+    @Override
+    public @NotNull PowerSummary aggregate() throws IOException, RuntimeException {
+        this.enter();
+
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment values = arena.allocate(JAVA_FLOAT, Aggregate.SIZE);
+            this.library.aggregate(this.ptr, values);
+
+            return Aggregate.summarize(values.toArray(JAVA_FLOAT));
+        } finally {
+            this.exit();
+        }
+    }
+
+    /**
+     * Returns the number of batteries whose native memory has not been freed yet.
+     * <p>
+     * Native memory of a battery is freed as soon as it disappears, and for all batteries once the manager is closed.
+     *
+     * @return the amount of live native battery handles.
+     */
+    public int handleCount() {
+        return this.guard.isClosed() ? 0 : this.present.size();
+    }
+
+    @Override
+    protected void free() {
+        for (ForeignBattery battery : this.present.values()) {
+            release(battery);
+        }
+
+        this.library.dropManager(this.ptr);
+    }
+
+    private static void release(ForeignBattery battery) {
+        battery.lock.lock();
+
+        try {
+            battery.release();
+        } finally {
+            battery.lock.unlock();
+        }
+    }
+}
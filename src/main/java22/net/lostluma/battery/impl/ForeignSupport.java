@@ -0,0 +1,23 @@
+package net.lostluma.battery.impl;
+
+import net.lostluma.battery.api.Manager;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the foreign function backend.
+ */
+@ApiStatus.Internal
+public final class ForeignSupport {
+    private ForeignSupport() {
+    }
+
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    public static Manager createManager() throws IOException {
+        return new ForeignManager();
+    }
+}
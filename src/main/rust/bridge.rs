@@ -1,11 +1,14 @@
+use std::ffi::c_void;
+
 use jni::{
-    objects::{JClass, JObject, JObjectArray},
-    sys::jlong,
-    JNIEnv,
+    objects::{JClass, JFloatArray, JObject, JObjectArray},
+    sys::{self, jint, jlong, JNI_ERR, JNI_VERSION_1_8},
+    JNIEnv, JavaVM,
 };
 
 use crate::{
-    create_manager, drop_battery, drop_manager, get_batteries, throw_io_exception, update_battery,
+    aggregate, cache, create_manager, drop_battery, drop_manager, get_batteries,
+    refresh_batteries, throw_io_exception, update_battery,
 };
 
 #[no_mangle]
@@ -26,8 +29,24 @@ pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_create<'a>(
 pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_batteries0<'a>(
     mut env: JNIEnv<'a>,
     this: JObject<'a>,
+    known: JObjectArray<'a>,
+) -> JObjectArray<'a> {
+    match get_batteries(&mut env, &this, &known) {
+        Ok(value) => value,
+        Err(error) => {
+            throw_io_exception(&mut env, error);
+            JObjectArray::default()
+        }
+    }
+}
+
+#[no_mangle]
+pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_refreshAll0<'a>(
+    mut env: JNIEnv<'a>,
+    this: JObject<'a>,
+    batteries: JObjectArray<'a>,
 ) -> JObjectArray<'a> {
-    match get_batteries(&mut env, &this) {
+    match refresh_batteries(&mut env, &this, &batteries) {
         Ok(value) => value,
         Err(error) => {
             throw_io_exception(&mut env, error);
@@ -36,6 +55,20 @@ pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_batteries0<'a>
     }
 }
 
+#[no_mangle]
+pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_aggregate0<'a>(
+    mut env: JNIEnv<'a>,
+    this: JObject<'a>,
+) -> JFloatArray<'a> {
+    match aggregate(&mut env, &this) {
+        Ok(value) => value,
+        Err(error) => {
+            throw_io_exception(&mut env, error);
+            JFloatArray::default()
+        }
+    }
+}
+
 #[no_mangle]
 pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_drop<'a>(
     mut _env: JNIEnv<'a>,
@@ -63,3 +96,22 @@ pub extern "system" fn Java_net_lostluma_battery_impl_ManagerImpl_dropBattery<'a
 ) {
     drop_battery(ptr)
 }
+
+#[no_mangle]
+pub extern "system" fn JNI_OnLoad(vm: *mut sys::JavaVM, _reserved: *mut c_void) -> jint {
+    let vm = match unsafe { JavaVM::from_raw(vm) } {
+        Ok(value) => value,
+        Err(_) => return JNI_ERR,
+    };
+
+    let mut env = match vm.get_env() {
+        Ok(value) => value,
+        Err(_) => return JNI_ERR,
+    };
+
+    // Failing here makes System.load throw, which surfaces as a LibraryLoadError
+    match cache::init(&mut env) {
+        Ok(()) => JNI_VERSION_1_8,
+        Err(_) => JNI_ERR,
+    }
+}
@@ -0,0 +1,153 @@
+use std::sync::OnceLock;
+
+use jni::{
+    objects::{GlobalRef, JClass, JFieldID, JMethodID, JObject},
+    sys::jint,
+    JNIEnv,
+};
+use starship_battery::{State, Technology};
+
+use crate::{
+    util::as_descriptor, Result, BATTERY_CLASS, BYTE_BUFFER_CLASS, MANAGER_CLASS, OBJECT_CLASS,
+    STRING_CLASS, TECHNOLOGY_ENUM,
+};
+
+// Must match the declaration order of the Java enum
+const TECHNOLOGY_MEMBERS: [&str; 9] = [
+    "UNKNOWN",
+    "LITHIUM_ION",
+    "LEAD_ACID",
+    "LITHIUM_POLYMER",
+    "NICKEL_METAL_HYDRIDE",
+    "NICKEL_CADMIUM",
+    "NICKEL_ZINC",
+    "LITHIUM_IRON_PHOSPHATE",
+    "RECHARGEABLE_ALKALINE_MANGANESE",
+];
+
+static CACHE: OnceLock<Cache> = OnceLock::new();
+
+/// JNI references which are resolved once in `JNI_OnLoad`,
+/// so the update path never has to look up classes or build signatures.
+pub struct Cache {
+    pub object_class: GlobalRef,
+    pub string_class: GlobalRef,
+    pub battery_class: GlobalRef,
+
+    pub battery_ptr: JFieldID,
+    pub battery_buffer: JFieldID,
+    pub battery_manager: JFieldID,
+    pub manager_ptr: JFieldID,
+
+    pub battery_init: JMethodID,
+
+    technologies: Vec<GlobalRef>,
+}
+
+// Global references and member IDs stay valid on any thread until the classes are unloaded
+unsafe impl Send for Cache {}
+unsafe impl Sync for Cache {}
+
+impl Cache {
+    pub fn object_class(&self) -> &JClass<'static> {
+        <&JClass>::from(self.object_class.as_obj())
+    }
+
+    pub fn string_class(&self) -> &JClass<'static> {
+        <&JClass>::from(self.string_class.as_obj())
+    }
+
+    pub fn battery_class(&self) -> &JClass<'static> {
+        <&JClass>::from(self.battery_class.as_obj())
+    }
+
+    pub fn technology(&self, value: Technology) -> &JObject<'static> {
+        self.technologies[technology_ordinal(value) as usize].as_obj()
+    }
+}
+
+/// Returns the ordinal of the matching Java `Technology` enum member.
+pub fn technology_ordinal(value: Technology) -> jint {
+    match value {
+        Technology::LithiumIon => 1,
+        Technology::LeadAcid => 2,
+        Technology::LithiumPolymer => 3,
+        Technology::NickelMetalHydride => 4,
+        Technology::NickelCadmium => 5,
+        Technology::NickelZinc => 6,
+        Technology::LithiumIronPhosphate => 7,
+        Technology::RechargeableAlkalineManganese => 8,
+        _ => 0,
+    }
+}
+
+/// Returns the ordinal of the matching Java `State` enum member.
+pub fn state_ordinal(value: State) -> jint {
+    match value {
+        State::Charging => 1,
+        State::Discharging => 2,
+        State::Empty => 3,
+        State::Full => 4,
+        _ => 0,
+    }
+}
+
+pub fn init(env: &mut JNIEnv) -> Result<()> {
+    if CACHE.get().is_some() {
+        return Ok(());
+    }
+
+    let object_class = env.find_class(OBJECT_CLASS)?;
+    let string_class = env.find_class(STRING_CLASS)?;
+    let battery_class = env.find_class(BATTERY_CLASS)?;
+    let manager_class = env.find_class(MANAGER_CLASS)?;
+
+    let battery_ptr = env.get_field_id(&battery_class, "ptr", "J")?;
+    let battery_buffer =
+        env.get_field_id(&battery_class, "buffer", as_descriptor(BYTE_BUFFER_CLASS))?;
+    let battery_manager =
+        env.get_field_id(&battery_class, "manager", as_descriptor(MANAGER_CLASS))?;
+    let manager_ptr = env.get_field_id(&manager_class, "ptr", "J")?;
+
+    let battery_init = env.get_method_id(
+        &battery_class,
+        "<init>",
+        format!("(JL{MANAGER_CLASS};L{STRING_CLASS};L{TECHNOLOGY_ENUM};L{STRING_CLASS};L{STRING_CLASS};L{STRING_CLASS};)V"),
+    )?;
+
+    let technologies = get_enum_members(env, TECHNOLOGY_ENUM, &TECHNOLOGY_MEMBERS)?;
+
+    let cache = Cache {
+        object_class: env.new_global_ref(object_class)?,
+        string_class: env.new_global_ref(string_class)?,
+        battery_class: env.new_global_ref(battery_class)?,
+        battery_ptr,
+        battery_buffer,
+        battery_manager,
+        manager_ptr,
+        battery_init,
+        technologies,
+    };
+
+    // Another thread may have won the race, in which case both caches are equivalent
+    let _ = CACHE.set(cache);
+    Ok(())
+}
+
+pub fn get() -> &'static Cache {
+    CACHE.get().expect("JNI cache is initialized in JNI_OnLoad")
+}
+
+fn get_enum_members(env: &mut JNIEnv, class: &str, members: &[&str]) -> Result<Vec<GlobalRef>> {
+    let descriptor = as_descriptor(class);
+    let class = env.find_class(class)?;
+
+    let mut result = Vec::with_capacity(members.len());
+
+    for member in members {
+        let value = env.get_static_field(&class, member, &descriptor)?.l()?;
+        result.push(env.new_global_ref(value)?);
+    }
+
+    Ok(result)
+}
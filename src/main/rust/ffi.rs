@@ -0,0 +1,212 @@
+//! Plain C ABI, used by the foreign function backend on Java 22 and newer.
+//!
+//! Functions which can fail return a negative value on failure. The message of the
+//! most recent failure on the calling thread can then be read using `battery_last_error`.
+//! Readings are written into caller-provided memory, nothing calls back into Java.
+
+use std::{cell::RefCell, ptr, slice};
+
+use starship_battery::{Battery, Manager};
+
+use crate::{cache, Error, Reading, Result, Summary};
+
+const FAILURE: i32 = -1;
+
+thread_local! {
+    static LAST_ERROR: RefCell<String> = const { RefCell::new(String::new()) };
+}
+
+fn fail(error: Error) -> i32 {
+    LAST_ERROR.with(|value| *value.borrow_mut() = error.message);
+    FAILURE
+}
+
+fn status(result: Result<()>) -> i32 {
+    match result {
+        Ok(()) => 0,
+        Err(error) => fail(error),
+    }
+}
+
+// Copies as much of the value as fits, and returns its full length
+unsafe fn copy_into(value: &[u8], buffer: *mut u8, capacity: usize) -> usize {
+    let length = value.len().min(capacity);
+    ptr::copy_nonoverlapping(value.as_ptr(), buffer, length);
+
+    value.len()
+}
+
+/// Copies the UTF-8 message of the most recent failure on this thread, returns its length in bytes.
+#[no_mangle]
+pub unsafe extern "C" fn battery_last_error(buffer: *mut u8, capacity: usize) -> usize {
+    LAST_ERROR.with(|value| copy_into(value.borrow().as_bytes(), buffer, capacity))
+}
+
+#[no_mangle]
+pub unsafe extern "C" fn battery_manager_create(out: *mut *mut Manager) -> i32 {
+    status(Manager::new().map_err(Error::from).map(|manager| {
+        *out = Box::into_raw(Box::from(manager));
+    }))
+}
+
+#[no_mangle]
+pub unsafe extern "C" fn battery_manager_drop(manager: *mut Manager) {
+    drop(Box::from_raw(manager));
+}
+
+/// Writes handles of up to `capacity` batteries into `out`, and returns how many batteries were found.
+///
+/// Batteries which did not fit are dropped again, the caller should retry with a larger buffer.
+#[no_mangle]
+pub unsafe extern "C" fn battery_manager_batteries(
+    manager: *mut Manager,
+    out: *mut *mut Battery,
+    capacity: usize,
+) -> isize {
+    let manager = &mut *manager;
+    let mut batteries: Vec<Battery> = Vec::new();
+
+    let iterator = match manager.batteries() {
+        Ok(value) => value,
+        Err(error) => return fail(error.into()) as isize,
+    };
+
+    for battery in iterator {
+        match battery {
+            Ok(value) => batteries.push(value),
+            Err(error) => return fail(error.into()) as isize,
+        }
+    }
+
+    let count = batteries.len();
+
+    for (index, battery) in batteries.into_iter().take(capacity).enumerate() {
+        *out.add(index) = Box::into_raw(Box::from(battery));
+    }
+
+    count as isize
+}
+
+/// Writes the summed values of all batteries, see `Summary`.
+#[no_mangle]
+pub unsafe extern "C" fn battery_manager_aggregate(manager: *mut Manager, out: *mut f32) -> i32 {
+    let manager = &mut *manager;
+    let mut summary = Summary::default();
+
+    let result = (|| -> Result<()> {
+        for battery in manager.batteries()? {
+            summary.add(&battery?);
+        }
+
+        Ok(())
+    })();
+
+    if result.is_ok() {
+        let values = summary.to_array();
+        ptr::copy_nonoverlapping(values.as_ptr(), out, values.len());
+    }
+
+    status(result)
+}
+
+#[no_mangle]
+pub unsafe extern "C" fn battery_drop(battery: *mut Battery) {
+    drop(Box::from_raw(battery));
+}
+
+/// Copies a UTF-8 string attribute, returns its length in bytes, or a negative value if it is not available.
+///
+/// Attributes are the vendor (0), model (1), and serial number (2).
+#[no_mangle]
+pub unsafe extern "C" fn battery_string(
+    battery: *const Battery,
+    attribute: i32,
+    buffer: *mut u8,
+    capacity: usize,
+) -> isize {
+    let battery = &*battery;
+
+    let value = match attribute {
+        0 => battery.vendor(),
+        1 => battery.model(),
+        2 => battery.serial_number(),
+        _ => None,
+    };
+
+    match value {
+        Some(value) => copy_into(value.as_bytes(), buffer, capacity) as isize,
+        None => -1,
+    }
+}
+
+/// Returns the ordinal of the battery's Java `Technology` enum member.
+#[no_mangle]
+pub unsafe extern "C" fn battery_technology(battery: *const Battery) -> i32 {
+    cache::technology_ordinal((*battery).technology())
+}
+
+/// Writes the most recently read values of the battery, without refreshing it.
+#[no_mangle]
+pub unsafe extern "C" fn battery_read(battery: *const Battery, reading: *mut Reading) {
+    reading.write_unaligned(Reading::from(&*battery));
+}
+
+#[no_mangle]
+pub unsafe extern "C" fn battery_refresh(
+    manager: *mut Manager,
+    battery: *mut Battery,
+    reading: *mut Reading,
+) -> i32 {
+    let battery = &mut *battery;
+
+    status((*manager).refresh(battery).map_err(Error::from).map(|_| {
+        reading.write_unaligned(Reading::from(&*battery));
+    }))
+}
+
+/// Refreshes multiple batteries, writing each status and reading at the battery's index.
+///
+/// The status of a battery is zero on success. Otherwise the failure's UTF-8 message is copied into
+/// the battery's slot of `errors`, which holds `error_capacity` bytes per battery, and the status is
+/// the negative of one plus the message's full length in bytes.
+///
+/// Returns how many batteries failed to refresh.
+#[no_mangle]
+pub unsafe extern "C" fn battery_refresh_all(
+    manager: *mut Manager,
+    batteries: *const *mut Battery,
+    readings: *const *mut Reading,
+    statuses: *mut i32,
+    errors: *mut u8,
+    error_capacity: usize,
+    count: usize,
+) -> i32 {
+    let manager = &mut *manager;
+
+    let batteries = slice::from_raw_parts(batteries, count);
+    let readings = slice::from_raw_parts(readings, count);
+    let statuses = slice::from_raw_parts_mut(statuses, count);
+
+    let mut failures = 0;
+
+    for index in 0..count {
+        let battery = &mut *batteries[index];
+
+        statuses[index] = match manager.refresh(battery) {
+            Ok(()) => {
+                readings[index].write_unaligned(Reading::from(&*battery));
+                0
+            }
+            Err(error) => {
+                let message = error.to_string();
+                let slot = errors.add(index * error_capacity);
+                let length = copy_into(message.as_bytes(), slot, error_capacity);
+
+                failures += 1;
+                -1 - length.min(i32::MAX as usize - 1) as i32
+            }
+        };
+    }
+
+    failures
+}
@@ -1,8 +1,8 @@
-use std::result;
+use std::{collections::HashMap, mem, result};
 
 use jni::{
-    objects::{JObject, JObjectArray, JValue},
-    sys::{jfloat, jlong},
+    objects::{JByteBuffer, JFloatArray, JObject, JObjectArray, JString, JValue},
+    sys::{jfloat, jint, jlong, jsize},
     JNIEnv,
 };
 use starship_battery::{
@@ -10,20 +10,23 @@ use starship_battery::{
         electric_potential::volt, energy::watt_hour, power::watt, ratio::percent,
         thermodynamic_temperature::degree_celsius, time::second,
     },
-    Battery, Manager,
+    Battery, Manager, State,
 };
-use util::{as_descriptor, get_enum_member, get_ptr, ToJString};
+use util::{get_long_field, get_object_field, ToJString};
 
+const OBJECT_CLASS: &str = "java/lang/Object";
 const STRING_CLASS: &str = "java/lang/String";
+const BYTE_BUFFER_CLASS: &str = "java/nio/ByteBuffer";
 const IO_EXCEPTION_CLASS: &str = "java/io/IOException";
 
-const STATE_ENUM: &str = "net/lostluma/battery/api/State";
 const TECHNOLOGY_ENUM: &str = "net/lostluma/battery/api/Technology";
 
 const BATTERY_CLASS: &str = "net/lostluma/battery/impl/BatteryImpl";
 const MANAGER_CLASS: &str = "net/lostluma/battery/impl/ManagerImpl";
 
 mod bridge;
+mod cache;
+mod ffi;
 mod util;
 
 struct Error {
@@ -48,36 +51,213 @@ impl From<starship_battery::Error> for Error {
 
 type Result<T> = result::Result<T, Error>;
 
+/// Battery information as read by `BatteryImpl` from its direct buffer.
+///
+/// Must be kept in sync with the offsets in `Reading.java`.
+#[repr(C)]
+struct Reading {
+    state_of_charge: jfloat,
+    energy: jfloat,
+    energy_full: jfloat,
+    energy_full_design: jfloat,
+    energy_rate: jfloat,
+    voltage: jfloat,
+    state_of_health: jfloat,
+    state: jint,
+    temperature: jfloat,
+    time_to_full: jfloat,
+    time_to_empty: jfloat,
+    padding: jint,
+    cycle_count: jlong,
+}
+
+impl From<&Battery> for Reading {
+    fn from(battery: &Battery) -> Self {
+        Reading {
+            state_of_charge: battery.state_of_charge().get::<percent>(),
+            energy: battery.energy().get::<watt_hour>(),
+            energy_full: battery.energy_full().get::<watt_hour>(),
+            energy_full_design: battery.energy_full_design().get::<watt_hour>(),
+            energy_rate: battery.energy_rate().get::<watt>(),
+            voltage: battery.voltage().get::<volt>(),
+            state_of_health: battery.state_of_health().get::<percent>(),
+            state: cache::state_ordinal(battery.state()),
+            temperature: match battery.temperature() {
+                Some(value) => value.get::<degree_celsius>(),
+                None => jfloat::NAN,
+            },
+            time_to_full: match battery.time_to_full() {
+                Some(value) => value.get::<second>(),
+                None => jfloat::NAN,
+            },
+            time_to_empty: match battery.time_to_empty() {
+                Some(value) => value.get::<second>(),
+                None => jfloat::NAN,
+            },
+            padding: 0,
+            cycle_count: match battery.cycle_count() {
+                Some(value) => value.into(),
+                None => jlong::MIN,
+            },
+        }
+    }
+}
+
+/// Sums over all batteries, as returned by `ManagerImpl.aggregate0`.
+///
+/// Must be kept in sync with the indices in `Aggregate.java`.
+#[derive(Default)]
+struct Summary {
+    batteries: u32,
+    energy: f64,
+    energy_full: f64,
+    energy_full_design: f64,
+    charging_rate: f64,
+    discharging_rate: f64,
+    states: jint,
+}
+
+impl Summary {
+    fn add(&mut self, battery: &Battery) {
+        let rate = battery.energy_rate().get::<watt>() as f64;
+
+        self.batteries += 1;
+        self.energy += battery.energy().get::<watt_hour>() as f64;
+        self.energy_full += battery.energy_full().get::<watt_hour>() as f64;
+        self.energy_full_design += battery.energy_full_design().get::<watt_hour>() as f64;
+
+        match battery.state() {
+            State::Charging => self.charging_rate += rate,
+            State::Discharging => self.discharging_rate += rate,
+            _ => {}
+        }
+
+        self.states |= 1 << cache::state_ordinal(battery.state());
+    }
+
+    fn to_array(&self) -> [jfloat; 7] {
+        [
+            self.batteries as jfloat,
+            self.energy as jfloat,
+            self.energy_full as jfloat,
+            self.energy_full_design as jfloat,
+            self.charging_rate as jfloat,
+            self.discharging_rate as jfloat,
+            self.states as jfloat,
+        ]
+    }
+}
+
 fn create_manager() -> Result<i64> {
     let manager = Manager::new()?;
     Ok(Box::into_raw(Box::from(manager)) as jlong)
 }
 
-fn get_batteries<'a>(env: &mut JNIEnv<'a>, this: &JObject<'a>) -> Result<JObjectArray<'a>> {
-    let ptr = get_ptr(env, this)?;
+fn get_batteries<'a>(
+    env: &mut JNIEnv<'a>,
+    this: &JObject<'a>,
+    known: &JObjectArray<'a>,
+) -> Result<JObjectArray<'a>> {
+    let cache = cache::get();
+
+    let ptr = get_long_field(env, this, cache.manager_ptr)?;
     let manager = unsafe { &mut *(ptr as *mut Manager) };
 
-    let mut count = 0;
     let mut batteries: Vec<Battery> = Vec::new();
 
     for battery in manager.batteries()? {
-        count += 1;
         batteries.push(battery?);
     }
 
-    let class = env.find_class(BATTERY_CLASS)?;
-    let array = env.new_object_array(count, &class, JObject::null())?;
+    // Keys of batteries the caller already has an instance for
+    let length = env.get_array_length(known)?;
+    let mut known_keys = Vec::with_capacity(length as usize);
 
-    for (battery, index) in batteries.into_iter().zip(0..) {
-        let object = create_battery(env, this, battery)?;
-        update_battery(env, &object)?;
+    for index in 0..length {
+        let object = JString::from(env.get_object_array_element(known, index)?);
+        known_keys.push(String::from(env.get_string(&object)?));
+
+        env.delete_local_ref(object)?;
+    }
 
-        env.set_object_array_element(&array, index, object)?;
+    let count = batteries.len() as jsize;
+    let array = env.new_object_array(count, cache.object_class(), JObject::null())?;
+
+    let keys = assign_keys(batteries.iter().map(get_identity).collect());
+
+    for ((battery, (key, unique)), index) in batteries.into_iter().zip(keys).zip(0..) {
+        // Ambiguous keys may belong to another battery than last time, so those are always created anew
+        let position = if unique {
+            known_keys.iter().position(|value| *value == key)
+        } else {
+            None
+        };
+
+        // Known batteries are represented by their existing key, only new ones are created
+        let element = match position {
+            Some(position) => env.get_object_array_element(known, position as jsize)?,
+            None => {
+                // Enumerating already read all information, so no refresh is needed
+                let reading = Reading::from(&battery);
+                let object = create_battery(env, this, battery, &key)?;
+
+                write_reading(env, &object, reading)?;
+                object
+            }
+        };
+
+        env.set_object_array_element(&array, index, &element)?;
+        env.delete_local_ref(element)?;
     }
 
     Ok(array)
 }
 
+fn get_identity(battery: &Battery) -> String {
+    identity(battery.vendor(), battery.model(), battery.serial_number())
+}
+
+/// Identifies a battery by its serial number, or its vendor and model if it has none.
+///
+/// Must match `BatteryKeys.identity` in Java, so all backends identify batteries the same way.
+fn identity(vendor: Option<&str>, model: Option<&str>, serial_number: Option<&str>) -> String {
+    match serial_number.map(str::trim) {
+        Some(value) if !value.is_empty() => value.to_string(),
+        _ => format!("{}/{}", vendor.unwrap_or_default(), model.unwrap_or_default()),
+    }
+}
+
+/// Turns identities into keys, which are unique among the batteries of one enumeration.
+///
+/// Batteries sharing an identity are told apart by their position, which changes once one of them is removed.
+/// Their keys are therefore marked as not unique, and must never be matched against batteries found before.
+///
+/// Must match `BatteryKeys.assign` in Java.
+fn assign_keys(identities: Vec<String>) -> Vec<(String, bool)> {
+    let mut occurrences: HashMap<String, usize> = HashMap::new();
+
+    for identity in &identities {
+        *occurrences.entry(identity.clone()).or_insert(0) += 1;
+    }
+
+    let mut positions: HashMap<String, usize> = HashMap::new();
+
+    identities
+        .into_iter()
+        .map(|identity| {
+            if occurrences[&identity] == 1 {
+                return (identity, true);
+            }
+
+            let position = positions.entry(identity.clone()).or_insert(0);
+            let key = format!("{identity}#{position}");
+
+            *position += 1;
+            (key, false)
+        })
+        .collect()
+}
+
 fn drop_manager<'a>(ptr: jlong) {
     #[allow(unused_variables)]
     let manager = unsafe { Box::from_raw(ptr as *mut Manager) };
@@ -87,8 +267,12 @@ fn create_battery<'a>(
     env: &mut JNIEnv<'a>,
     parent: &JObject<'a>,
     battery: Battery,
+    key: &str,
 ) -> Result<JObject<'a>> {
-    let technology = get_enum_member(env, TECHNOLOGY_ENUM, battery.technology())?.l()?;
+    let cache = cache::get();
+    let technology = cache.technology(battery.technology());
+
+    let key = env.new_string(key)?;
 
     let vendor = battery.vendor().to_jstring(env)?;
     let model = battery.model().to_jstring(env)?;
@@ -96,74 +280,123 @@ fn create_battery<'a>(
 
     let ptr = Box::into_raw(Box::from(battery)) as jlong;
 
-    let class = env.find_class(BATTERY_CLASS)?;
+    // Safety: The constructor ID was resolved using exactly this signature
+    let object = unsafe {
+        env.new_object_unchecked(
+            cache.battery_class(),
+            cache.battery_init,
+            &[
+                JValue::Long(ptr).as_jni(),
+                JValue::Object(parent).as_jni(),
+                JValue::Object(&key).as_jni(),
+                JValue::Object(technology).as_jni(),
+                JValue::Object(&vendor).as_jni(),
+                JValue::Object(&model).as_jni(),
+                JValue::Object(&serial_number).as_jni(),
+            ],
+        )
+    };
+
+    Ok(object?)
+}
+
+fn aggregate<'a>(env: &mut JNIEnv<'a>, this: &JObject<'a>) -> Result<JFloatArray<'a>> {
+    let cache = cache::get();
+
+    let ptr = get_long_field(env, this, cache.manager_ptr)?;
+    let manager = unsafe { &mut *(ptr as *mut Manager) };
+
+    // Batteries are only read and dropped again, nothing is handed to Java
+    let mut summary = Summary::default();
+
+    for battery in manager.batteries()? {
+        summary.add(&battery?);
+    }
 
-    let object = env.new_object(
-        &class,
-        format!("(JL{MANAGER_CLASS};L{TECHNOLOGY_ENUM};L{STRING_CLASS};L{STRING_CLASS};L{STRING_CLASS};)V"),
-        &[JValue::Long(ptr), JValue::Object(parent), JValue::Object(&technology), JValue::Object(&vendor), JValue::Object(&model), JValue::Object(&serial_number)]
-    )?;
+    let values = summary.to_array();
+    let array = env.new_float_array(values.len() as jsize)?;
 
-    Ok(object)
+    env.set_float_array_region(&array, 0, &values)?;
+    Ok(array)
 }
 
 fn update_battery<'a>(env: &mut JNIEnv<'a>, this: &JObject<'a>) -> Result<()> {
-    let parent = env
-        .get_field(this, "manager", as_descriptor(MANAGER_CLASS))?
-        .l()?;
+    let cache = cache::get();
+    let parent = get_object_field(env, this, cache.battery_manager)?;
+
+    let ptr = get_long_field(env, &parent, cache.manager_ptr)?;
+    let manager = unsafe { &mut *(ptr as *mut Manager) };
+
+    env.delete_local_ref(parent)?;
+
+    refresh_battery(env, manager, this)
+}
+
+fn refresh_batteries<'a>(
+    env: &mut JNIEnv<'a>,
+    this: &JObject<'a>,
+    batteries: &JObjectArray<'a>,
+) -> Result<JObjectArray<'a>> {
+    let cache = cache::get();
+
+    let ptr = get_long_field(env, this, cache.manager_ptr)?;
+    let manager = unsafe { &mut *(ptr as *mut Manager) };
+
+    let length = env.get_array_length(batteries)?;
+    let errors = env.new_object_array(length, cache.string_class(), JObject::null())?;
+
+    for index in 0..length {
+        let object = env.get_object_array_element(batteries, index)?;
+
+        // Errors are collected per battery, so one failing battery doesn't stop the others
+        if let Err(error) = refresh_battery(env, manager, &object) {
+            // Any pending Java exception makes further JNI calls invalid
+            if env.exception_check()? {
+                return Err(error);
+            }
+
+            let message = env.new_string(error.message)?;
+            env.set_object_array_element(&errors, index, &message)?;
+            env.delete_local_ref(message)?;
+        }
+
+        env.delete_local_ref(object)?;
+    }
+
+    Ok(errors)
+}
 
-    let battery = unsafe { &mut *(get_ptr(env, this)? as *mut Battery) };
-    let manager = unsafe { &mut *(get_ptr(env, &parent)? as *mut Manager) };
+fn refresh_battery<'a>(
+    env: &mut JNIEnv<'a>,
+    manager: &mut Manager,
+    this: &JObject<'a>,
+) -> Result<()> {
+    let cache = cache::get();
+    let ptr = get_long_field(env, this, cache.battery_ptr)?;
+    let battery = unsafe { &mut *(ptr as *mut Battery) };
 
     manager.refresh(battery)?;
 
-    let state_of_charge = battery.state_of_charge().get::<percent>();
-    let energy = battery.energy().get::<watt_hour>();
-    let energy_full = battery.energy_full().get::<watt_hour>();
-    let energy_rate = battery.energy_rate().get::<watt>();
-    let energy_full_design = battery.energy_full_design().get::<watt_hour>();
-    let voltage = battery.voltage().get::<volt>();
-    let state_of_health = battery.state_of_health().get::<percent>();
+    write_reading(env, this, Reading::from(&*battery))
+}
 
-    let state = get_enum_member(env, STATE_ENUM, battery.state())?;
+fn write_reading<'a>(env: &mut JNIEnv<'a>, this: &JObject<'a>, reading: Reading) -> Result<()> {
+    let cache = cache::get();
+    let buffer = JByteBuffer::from(get_object_field(env, this, cache.battery_buffer)?);
 
-    let temperature = match battery.temperature() {
-        Some(value) => value.get::<degree_celsius>(),
-        None => jfloat::NAN,
-    };
-    let cycle_count = match battery.cycle_count() {
-        Some(value) => value.into(),
-        None => jlong::MIN,
-    };
-    let time_to_full = match battery.time_to_full() {
-        Some(value) => value.get::<second>(),
-        None => jfloat::NAN,
-    };
-    let time_to_empty = match battery.time_to_empty() {
-        Some(value) => value.get::<second>(),
-        None => jfloat::NAN,
-    };
+    let address = env.get_direct_buffer_address(&buffer)?;
+    let capacity = env.get_direct_buffer_capacity(&buffer)?;
 
-    env.call_method(
-        &this,
-        "update0",
-        format!("(FFFFFFFL{STATE_ENUM};FJFF)V"),
-        &[
-            JValue::Float(state_of_charge),
-            JValue::Float(energy),
-            JValue::Float(energy_full),
-            JValue::Float(energy_rate),
-            JValue::Float(energy_full_design),
-            JValue::Float(voltage),
-            JValue::Float(state_of_health),
-            state.borrow(),
-            JValue::Float(temperature),
-            JValue::Long(cycle_count),
-            JValue::Float(time_to_full),
-            JValue::Float(time_to_empty),
-        ],
-    )?;
+    if capacity < mem::size_of::<Reading>() {
+        return Err(Error {
+            message: "Battery reading buffer is too small.".to_string(),
+        });
+    }
+
+    // Safety: The buffer is large enough, and the write does not rely on alignment
+    unsafe { (address as *mut Reading).write_unaligned(reading) };
 
+    env.delete_local_ref(buffer)?;
     Ok(())
 }
 
@@ -176,3 +409,48 @@ fn throw_io_exception<'a>(env: &mut JNIEnv<'a>, error: Error) {
     env.throw_new(IO_EXCEPTION_CLASS, error.message)
         .expect("throw exception");
 }
+
+#[cfg(test)]
+mod tests {
+    use super::{assign_keys, identity};
+
+    fn keys(identities: &[&str]) -> Vec<(String, bool)> {
+        assign_keys(identities.iter().map(|value| value.to_string()).collect())
+    }
+
+    #[test]
+    fn identity_prefers_serial_number() {
+        assert_eq!(identity(Some("V"), Some("M"), Some(" SN ")), "SN");
+        assert_eq!(identity(Some("V"), Some("M"), Some(" ")), "V/M");
+        assert_eq!(identity(None, None, None), "/");
+    }
+
+    #[test]
+    fn unique_identities_are_kept() {
+        assert_eq!(
+            keys(&["A", "B"]),
+            vec![("A".to_string(), true), ("B".to_string(), true)]
+        );
+    }
+
+    #[test]
+    fn shared_identities_are_not_unique() {
+        assert_eq!(
+            keys(&["V/M", "A", "V/M"]),
+            vec![
+                ("V/M#0".to_string(), false),
+                ("A".to_string(), true),
+                ("V/M#1".to_string(), false)
+            ]
+        );
+    }
+
+    #[test]
+    fn remaining_battery_does_not_take_over_removed_key() {
+        // The first of two identical batteries is unplugged, the remaining one must not reuse its instance
+        let before = keys(&["V/M", "V/M"]);
+        let after = keys(&["V/M"]);
+
+        assert!(before.iter().all(|(key, _)| *key != after[0].0));
+    }
+}
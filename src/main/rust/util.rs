@@ -1,5 +1,6 @@
 use jni::{
-    objects::{JObject, JString, JValueGen},
+    objects::{JFieldID, JObject, JString},
+    signature::{Primitive, ReturnType},
     sys::jlong,
     JNIEnv,
 };
@@ -10,23 +11,25 @@ pub fn as_descriptor(class: &str) -> String {
     format!("L{class};")
 }
 
-pub fn get_ptr<'a>(env: &mut JNIEnv<'a>, this: &JObject<'a>) -> Result<jlong> {
-    Ok(env.get_field(this, "ptr", "J")?.try_into()?)
+pub fn get_long_field<'a>(
+    env: &mut JNIEnv<'a>,
+    this: &JObject<'a>,
+    field: JFieldID,
+) -> Result<jlong> {
+    // Safety: Field IDs are only resolved for fields of type long in the cache
+    let value =
+        unsafe { env.get_field_unchecked(this, field, ReturnType::Primitive(Primitive::Long)) };
+    Ok(value?.j()?)
 }
 
-pub fn get_enum_member<'a>(
+pub fn get_object_field<'a>(
     env: &mut JNIEnv<'a>,
-    class: &str,
-    value: impl ToString,
-) -> Result<JValueGen<JObject<'a>>> {
-    let descriptor = as_descriptor(class);
-    // Convert member name from e.g. "lithium-ion" to "LITHIUM_ION"
-    let value = value.to_string().to_ascii_uppercase().replace("-", "_");
-
-    let class = env.find_class(class)?;
-    let field = env.get_static_field(class, value, &descriptor)?;
-
-    Ok(field)
+    this: &JObject<'a>,
+    field: JFieldID,
+) -> Result<JObject<'a>> {
+    // Safety: Field IDs are only resolved for fields of an object type in the cache
+    let value = unsafe { env.get_field_unchecked(this, field, ReturnType::Object) };
+    Ok(value?.l()?)
 }
 
 pub trait ToJString {
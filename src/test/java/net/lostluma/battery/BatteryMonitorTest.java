@@ -0,0 +1,87 @@
+package net.lostluma.battery;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatteryListener;
+import net.lostluma.battery.api.BatteryMonitor;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatteryMonitorTest {
+    @Test
+    void throwingListenerDoesNotStopMonitoring() throws Exception {
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+
+        Queue<Throwable> reported = new ConcurrentLinkedQueue<>();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+
+        Simulation simulation = Simulation.builder()
+            .batteries(1)
+            .noise(0.1f)
+            .timeStep(Duration.ofMinutes(1))
+            .build();
+
+        Manager manager = Manager.createSimulated(simulation);
+
+        try (BatteryMonitor monitor = BatteryMonitor.create(manager, Duration.ofMillis(1), Duration.ofMillis(20), 0.0f)) {
+            RuntimeException failure = new RuntimeException("Listener failure");
+
+            CountDownLatch changes = new CountDownLatch(3);
+            AtomicReference<IOException> error = new AtomicReference<>();
+            CountDownLatch stopped = new CountDownLatch(1);
+
+            monitor.addListener(new BatteryListener() {
+                @Override
+                public void onChange(Battery battery, BatterySnapshot previous, BatterySnapshot current) {
+                    throw failure;
+                }
+
+                @Override
+                public void onError(Battery battery, IOException error) {
+                    throw failure;
+                }
+            });
+
+            monitor.addListener(new BatteryListener() {
+                @Override
+                public void onChange(Battery battery, BatterySnapshot previous, BatterySnapshot current) {
+                    changes.countDown();
+                }
+
+                @Override
+                public void onError(Battery battery, IOException e) {
+                    error.set(e);
+                    stopped.countDown();
+                }
+            });
+
+            monitor.start();
+
+            // Later listeners are still notified, and polling continues after the first listener threw
+            assertTrue(changes.await(10, TimeUnit.SECONDS));
+            assertFalse(reported.isEmpty());
+            assertTrue(reported.stream().allMatch(e -> e == failure));
+
+            // Closing the manager is still reported as such
+            manager.close();
+
+            assertTrue(stopped.await(10, TimeUnit.SECONDS));
+            assertTrue(error.get().getCause() instanceof IllegalStateException);
+        } finally {
+            manager.close();
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+}
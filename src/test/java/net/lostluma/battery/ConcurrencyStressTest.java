@@ -0,0 +1,276 @@
+package net.lostluma.battery;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.exception.LibraryLoadError;
+import net.lostluma.battery.api.simulation.Simulation;
+import net.lostluma.battery.impl.ManagerImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs updates, bulk refreshes, enumerations, and summaries concurrently with closing the manager.
+ * <p>
+ * Every call must either succeed, fail with an {@link IOException}, or fail with an {@link IllegalStateException}
+ * once the manager is closed. All threads must finish, so neither calls nor closing may deadlock.
+ */
+class ConcurrencyStressTest {
+    private static final int ROUNDS = 5;
+    private static final int WORKERS = 3; // Per kind of call
+    private static final long RUN_MILLIS = 200;
+    private static final long JOIN_MILLIS = 10_000;
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void simulated() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Simulation simulation = Simulation.builder()
+                .batteries(16)
+                .seed(round)
+                .timeStep(Duration.ofSeconds(1))
+                .hotplugProbability(0.05)
+                .failureProbability(0.01)
+                .build();
+
+            stress(Manager.createSimulated(simulation));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void sysfs() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Path root = fakePowerSupply(8);
+
+            try {
+                stress(Manager.createSysfs(root));
+            } finally {
+                delete(root);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void shared() throws Exception {
+        Manager other = createNative(true);
+
+        try {
+            stress(Manager.shared(Duration.ZERO));
+
+            // Closing one view must keep the native manager alive for the other one
+            other.batteries();
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void nativeBackend() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Manager manager = createNative(false);
+            stress(manager);
+
+            // Closing frees every native battery, later collection of a battery must not free it again
+            assertEquals(0, ((ManagerImpl) manager).handleCount());
+            System.gc();
+        }
+    }
+
+    private static Manager createNative(boolean shared) {
+        try {
+            return shared ? Manager.shared() : Manager.create();
+        } catch (IOException | LibraryLoadError e) {
+            assumeTrue(false, "Native backend is not available: " + e.getMessage());
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void stress(Manager manager) throws Exception {
+        List<Battery> batteries = new ArrayList<>(manager.batteries());
+
+        AtomicBoolean closed = new AtomicBoolean();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(WORKERS * 5);
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (int index = 0; index < WORKERS; index++) {
+            SplittableRandom random = new SplittableRandom(index);
+
+            threads.add(worker(ready, closed, errors, () -> {
+                if (!batteries.isEmpty()) {
+                    batteries.get(random.nextInt(batteries.size())).update();
+                } else {
+                    manager.batteries();
+                }
+            }));
+
+            threads.add(worker(ready, closed, errors, () -> {
+                if (!batteries.isEmpty()) {
+                    batteries.get(random.nextInt(batteries.size())).update(Duration.ofMillis(1));
+                }
+            }));
+
+            threads.add(worker(ready, closed, errors, () -> {
+                // Differently ordered bulk refreshes must not deadlock on the battery locks
+                List<Battery> shuffled = new ArrayList<>(batteries);
+                Collections.shuffle(shuffled, new java.util.Random(random.nextLong()));
+
+                manager.refreshAll(shuffled);
+            }));
+
+            threads.add(worker(ready, closed, errors, manager::batteries));
+            threads.add(worker(ready, closed, errors, manager::aggregate));
+        }
+
+        ready.await();
+        Thread.sleep(RUN_MILLIS);
+
+        closed.set(true);
+
+        Thread closer = new Thread(manager::close, "Closer");
+        closer.start();
+        threads.add(closer);
+
+        long deadline = System.currentTimeMillis() + JOIN_MILLIS;
+
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+
+            if (thread.isAlive()) {
+                fail("Thread " + thread.getName() + " did not finish" + deadlocks());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError("Unexpected failures during concurrent use");
+            errors.forEach(error::addSuppressed);
+
+            throw error;
+        }
+
+        // Closing again has no effect
+        manager.close();
+
+        assertThrows(IllegalStateException.class, manager::batteries);
+        assertThrows(IllegalStateException.class, () -> manager.refreshAll(batteries));
+        assertThrows(IllegalStateException.class, manager::aggregate);
+
+        for (Battery battery : batteries) {
+            assertThrows(IllegalStateException.class, battery::update);
+        }
+    }
+
+    private static Thread worker(CountDownLatch ready, AtomicBoolean closed, Queue<Throwable> errors, Call call) {
+        Thread thread = new Thread(() -> {
+            ready.countDown();
+
+            while (true) {
+                try {
+                    call.run();
+                } catch (IOException e) {
+                    // Simulated failures, or batteries which were removed
+                } catch (IllegalStateException e) {
+                    if (!closed.get()) {
+                        errors.add(e);
+                    }
+
+                    return;
+                } catch (Throwable e) {
+                    errors.add(e);
+                    return;
+                }
+            }
+        }, "Stress Worker");
+
+        thread.setDaemon(true);
+        thread.start();
+
+        return thread;
+    }
+
+    private static String deadlocks() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long[] ids = bean.findDeadlockedThreads();
+
+        if (ids == null) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder(", deadlocked threads:");
+
+        for (ThreadInfo info : bean.getThreadInfo(ids, true, true)) {
+            builder.append('\n').append(info);
+        }
+
+        return builder.toString();
+    }
+
+    private static Path fakePowerSupply(int batteries) throws IOException {
+        Path root = Files.createTempDirectory("power-supply");
+
+        for (int index = 0; index < batteries; index++) {
+            Path directory = Files.createDirectory(root.resolve("BAT" + index));
+
+            write(directory, "type", "Battery");
+            write(directory, "status", index % 2 == 0 ? "Charging" : "Discharging");
+            write(directory, "serial_number", "SERIAL" + index);
+            write(directory, "energy_now", "25000000");
+            write(directory, "energy_full", "50000000");
+            write(directory, "energy_full_design", "55000000");
+            write(directory, "power_now", "10000000");
+            write(directory, "voltage_now", "12000000");
+        }
+
+        return root;
+    }
+
+    private static void write(Path directory, String name, String value) throws IOException {
+        Files.write(directory.resolve(name), (value + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path root) throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try (java.util.stream.Stream<Path> stream = Files.walk(root)) {
+            stream.forEach(paths::add);
+        }
+
+        Collections.reverse(paths);
+
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws IOException;
+    }
+}
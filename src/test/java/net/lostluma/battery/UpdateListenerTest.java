@@ -0,0 +1,66 @@
+package net.lostluma.battery;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.api.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateListenerTest {
+    @Test
+    void throwingListenerDoesNotAbortRefresh() throws Exception {
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+
+        List<Throwable> reported = new ArrayList<>();
+        thread.setUncaughtExceptionHandler((source, e) -> reported.add(e));
+
+        try (Manager manager = Manager.createSimulated(Simulation.builder().batteries(4).build())) {
+            Collection<Battery> batteries = manager.batteries();
+
+            RuntimeException failure = new RuntimeException("Listener failure");
+            AtomicInteger notified = new AtomicInteger();
+
+            Consumer<BatterySnapshot> throwing = snapshot -> {
+                throw failure;
+            };
+
+            for (Battery battery : batteries) {
+                battery.addUpdateListener(throwing);
+                battery.addUpdateListener(snapshot -> notified.incrementAndGet());
+            }
+
+            RefreshResult result = manager.refreshAll(batteries);
+
+            // Every battery is refreshed, and listeners after the throwing one still see each snapshot
+            assertTrue(result.isSuccessful());
+            assertEquals(batteries.size(), result.succeeded());
+            assertEquals(batteries.size(), notified.get());
+
+            assertEquals(batteries.size(), reported.size());
+            assertSame(failure, reported.get(0));
+
+            // A single update succeeds and publishes its snapshot as well
+            Battery battery = batteries.iterator().next();
+            long sequence = battery.snapshot().sequence();
+
+            battery.update();
+
+            assertEquals(sequence + 1, battery.snapshot().sequence());
+            assertEquals(batteries.size() + 1, notified.get());
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.impl.history.Segments;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryRecorderTest {
+    private static final State[] STATES = State.values();
+
+    @Test
+    void recordsRoundTripAcrossSegments() throws Exception {
+        Path root = Files.createTempDirectory("history");
+
+        try {
+            HistoryRecorder recorder = new HistoryRecorder(root, "SERIAL", 4096);
+            Random random = new Random(42);
+
+            List<BatterySnapshot> written = new ArrayList<>();
+            long start = System.currentTimeMillis();
+
+            for (int sequence = 1; sequence <= 2000; sequence++) {
+                BatterySnapshot snapshot = snapshot(random, sequence);
+
+                recorder.accept(snapshot);
+                written.add(snapshot);
+            }
+
+            long end = System.currentTimeMillis();
+
+            // Older snapshots are ignored
+            recorder.accept(snapshot(random, 1));
+
+            assertFalse(recorder.failure().isPresent());
+            assertTrue(Segments.list(Segments.directory(root, "SERIAL")).size() > 1);
+
+            HistoryReader reader = HistoryReader.open(root, "SERIAL", Long.MIN_VALUE, Long.MAX_VALUE);
+            long previous = start;
+
+            for (BatterySnapshot expected : written) {
+                assertTrue(reader.next());
+
+                assertTrue(reader.timestampMillis() >= previous && reader.timestampMillis() <= end);
+                previous = reader.timestampMillis();
+
+                assertEquals(expected.stateOfCharge(), reader.stateOfCharge());
+                assertEquals(expected.energy(), reader.energy());
+                assertEquals(expected.energyFull(), reader.energyFull());
+                assertEquals(expected.energyFullDesign(), reader.energyFullDesign());
+                assertEquals(expected.energyRate(), reader.energyRate());
+                assertEquals(expected.voltage(), reader.voltage());
+                assertEquals(expected.stateOfHealth(), reader.stateOfHealth());
+                assertEquals(expected.state(), reader.state());
+                assertEquals(expected.temperatureCelsiusOrNaN(), reader.temperatureCelsiusOrNaN());
+                assertEquals(expected.cycleCountOrMin(), reader.cycleCountOrMin());
+                assertEquals(expected.timeToFullSeconds(), reader.timeToFullSeconds());
+                assertEquals(expected.timeToEmptySeconds(), reader.timeToEmptySeconds());
+            }
+
+            assertFalse(reader.next());
+        } finally {
+            delete(root);
+        }
+    }
+
+    @Test
+    void recordingResumesAfterFailure() throws Exception {
+        Path root = Files.createTempDirectory("history");
+        Path blocked = root.resolve("logs");
+
+        try {
+            // A file where the log's parent directory should be, so starting a segment fails
+            Files.createFile(blocked);
+
+            HistoryRecorder recorder = new HistoryRecorder(blocked, "SERIAL", 4096);
+            Random random = new Random(42);
+
+            recorder.accept(snapshot(random, 1));
+            assertTrue(recorder.failure().isPresent());
+
+            Files.delete(blocked);
+
+            BatterySnapshot snapshot = snapshot(random, 2);
+            recorder.accept(snapshot);
+
+            assertFalse(recorder.failure().isPresent());
+
+            HistoryReader reader = HistoryReader.open(blocked, "SERIAL", Long.MIN_VALUE, Long.MAX_VALUE);
+
+            assertTrue(reader.next());
+            assertEquals(snapshot.energy(), reader.energy());
+            assertFalse(reader.next());
+        } finally {
+            delete(root);
+        }
+    }
+
+    // Slowly changing values with occasional jumps, so records use every encoding
+    private static BatterySnapshot snapshot(Random random, long sequence) {
+        float energy = 50.0f - sequence * 0.01f;
+        float rate = random.nextInt(10) == 0 ? random.nextFloat() * 30.0f : 10.0f;
+        float temperature = random.nextInt(20) == 0 ? Float.NaN : 30.0f + random.nextInt(5) * 0.1f;
+        State state = STATES[(int) (sequence / 100 % STATES.length)];
+        long cycleCount = random.nextInt(50) == 0 ? Long.MIN_VALUE : 100 + sequence / 500;
+
+        return new BatterySnapshot(sequence, 0, energy / 60.0f * 100.0f, energy, 60.0f, 65.0f, rate, 12.0f + random.nextFloat(), 92.3f, state, Technology.LITHIUM_ION, temperature, cycleCount, Float.NaN, energy / rate * 3600.0f);
+    }
+
+    private static void delete(Path root) throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try (java.util.stream.Stream<Path> stream = Files.walk(root)) {
+            stream.forEach(paths::add);
+        }
+
+        Collections.reverse(paths);
+
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
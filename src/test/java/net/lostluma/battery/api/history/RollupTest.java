@@ -0,0 +1,131 @@
+package net.lostluma.battery.api.history;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.Manager;
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import net.lostluma.battery.api.simulation.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RollupTest {
+    @Test
+    void samplesAreBucketedAtTierBoundaries() {
+        Rollup rollup = Rollup.builder()
+            .tier(Duration.ofSeconds(1), 3)
+            .tier(Duration.ofMinutes(1), 2)
+            .build();
+
+        rollup.append(0, snapshot(1, 10.0f));
+        rollup.append(999, snapshot(2, 20.0f));
+        rollup.append(1000, snapshot(3, 30.0f));
+
+        List<float[]> seconds = query(rollup.tiers().get(0), 0, 2999);
+
+        // The last millisecond of a bucket still belongs to it, the next one starts a new bucket
+        assertEquals(2, seconds.size());
+        assertBucket(seconds.get(0), 0, 2, 10.0f, 20.0f, 15.0f, 20.0f);
+        assertBucket(seconds.get(1), 1000, 1, 30.0f, 30.0f, 30.0f, 30.0f);
+
+        // Every sample is added to the coarser tier directly
+        List<float[]> minutes = query(rollup.tiers().get(1), 0, 59_999);
+
+        assertEquals(1, minutes.size());
+        assertBucket(minutes.get(0), 0, 3, 10.0f, 30.0f, 20.0f, 30.0f);
+
+        // A sample three buckets later evicts the oldest bucket of the finest tier
+        rollup.append(3000, snapshot(4, 40.0f));
+        seconds = query(rollup.tiers().get(0), 0, 3999);
+
+        assertEquals(2, seconds.size());
+        assertBucket(seconds.get(0), 1000, 1, 30.0f, 30.0f, 30.0f, 30.0f);
+        assertBucket(seconds.get(1), 3000, 1, 40.0f, 40.0f, 40.0f, 40.0f);
+        assertEquals(1000, rollup.tiers().get(0).oldestMillis());
+
+        // Samples older than the oldest retained bucket are ignored
+        rollup.append(500, snapshot(5, 50.0f));
+        assertEquals(2, query(rollup.tiers().get(0), 0, 3999).size());
+
+        // Queries reaching further back than the finest tier fall back to a coarser one
+        List<float[]> selected = new ArrayList<>();
+        rollup.query(Field.STATE_OF_CHARGE, 0, 3999, (start, count, min, max, mean, last) -> selected.add(new float[] { start, count }));
+
+        assertEquals(1, selected.size());
+        assertEquals(5.0f, selected.get(0)[1]);
+    }
+
+    @Test
+    void reattachingProcessesSnapshotsOfTheNewBattery() throws Exception {
+        Rollup rollup = Rollup.builder().tier(Duration.ofDays(1), 2).build();
+
+        try (Manager manager = Manager.createSimulated(Simulation.builder().batteries(2).build())) {
+            Iterator<Battery> batteries = manager.batteries().iterator();
+
+            Battery first = batteries.next();
+            Battery second = batteries.next();
+
+            // Advance the first battery's sequence well beyond the second one's
+            for (int i = 0; i < 10; i++) {
+                first.update();
+            }
+
+            rollup.attach(first);
+            first.update();
+
+            assertEquals(2, count(rollup));
+
+            rollup.detach();
+            first.update();
+
+            assertEquals(2, count(rollup));
+
+            // Lower sequence numbers of another battery are not mistaken for stale snapshots
+            rollup.attach(second);
+            assertEquals(3, count(rollup));
+
+            second.update();
+            assertEquals(4, count(rollup));
+
+            // Updates of the previous battery are not processed anymore
+            first.update();
+            assertEquals(4, count(rollup));
+
+            rollup.detach();
+        }
+    }
+
+    private static BatterySnapshot snapshot(long sequence, float stateOfCharge) {
+        return new BatterySnapshot(sequence, 0, stateOfCharge, 10.0f, 20.0f, 20.0f, 5.0f, 12.0f, 100.0f, State.DISCHARGING, Technology.LITHIUM_ION, Float.NaN, 0, Float.NaN, Float.NaN);
+    }
+
+    private static List<float[]> query(RollupTier tier, long fromMillis, long toMillis) {
+        List<float[]> buckets = new ArrayList<>();
+        tier.query(Field.STATE_OF_CHARGE, fromMillis, toMillis, (start, count, min, max, mean, last) -> buckets.add(new float[] { start, count, min, max, mean, last }));
+
+        return buckets;
+    }
+
+    private static void assertBucket(float[] bucket, long start, int count, float min, float max, float mean, float last) {
+        assertEquals((float) start, bucket[0]);
+        assertEquals((float) count, bucket[1]);
+        assertEquals(min, bucket[2]);
+        assertEquals(max, bucket[3]);
+        assertEquals(mean, bucket[4]);
+        assertEquals(last, bucket[5]);
+    }
+
+    private static int count(Rollup rollup) {
+        int[] count = new int[1];
+        long now = System.currentTimeMillis();
+
+        rollup.query(Field.STATE_OF_CHARGE, now - Duration.ofDays(1).toMillis(), now, (start, samples, min, max, mean, last) -> count[0] += samples);
+        return count[0];
+    }
+}
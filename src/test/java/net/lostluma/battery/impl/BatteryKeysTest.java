@@ -0,0 +1,52 @@
+package net.lostluma.battery.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatteryKeysTest {
+    @Test
+    void identityPrefersSerialNumber() {
+        assertEquals("SN", BatteryKeys.identity("Vendor", "Model", " SN "));
+        assertEquals("Vendor/Model", BatteryKeys.identity("Vendor", "Model", " "));
+        assertEquals("/", BatteryKeys.identity(null, null, null));
+    }
+
+    @Test
+    void uniqueIdentitiesAreKept() {
+        String[] keys = {"A", "B"};
+
+        assertArrayEquals(new boolean[] {true, true}, BatteryKeys.assign(keys));
+        assertArrayEquals(new String[] {"A", "B"}, keys);
+    }
+
+    @Test
+    void sharedIdentitiesAreNotUnique() {
+        String[] keys = {"Vendor/Model", "A", "Vendor/Model"};
+
+        assertArrayEquals(new boolean[] {false, true, false}, BatteryKeys.assign(keys));
+        assertArrayEquals(new String[] {"Vendor/Model#0", "A", "Vendor/Model#1"}, keys);
+    }
+
+    @Test
+    void remainingBatteryDoesNotTakeOverRemovedKey() {
+        // Two batteries without serial number, the first one is unplugged while the second one stays present
+        String[] before = {"Vendor/Model", "Vendor/Model"};
+        String[] after = {"Vendor/Model"};
+
+        boolean[] uniqueBefore = BatteryKeys.assign(before);
+        boolean[] uniqueAfter = BatteryKeys.assign(after);
+
+        // Neither key before may be matched, so the remaining battery can't inherit the removed one's instance
+        assertFalse(uniqueBefore[0]);
+        assertFalse(uniqueBefore[1]);
+
+        assertTrue(uniqueAfter[0]);
+        assertNotEquals(before[0], after[0]);
+        assertNotEquals(before[1], after[0]);
+    }
+}
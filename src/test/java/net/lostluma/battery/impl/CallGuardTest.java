@@ -0,0 +1,86 @@
+package net.lostluma.battery.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallGuardTest {
+    private static final int THREADS = 8;
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void closeWaitsForCallsInProgress() throws InterruptedException {
+        CallGuard guard = new CallGuard();
+
+        // Stands in for native memory, which must never be used once it was freed
+        AtomicBoolean freed = new AtomicBoolean();
+        AtomicLong violations = new AtomicLong();
+        AtomicLong calls = new AtomicLong();
+
+        CountDownLatch started = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int index = 0; index < THREADS; index++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+
+                while (guard.enter()) {
+                    try {
+                        for (int step = 0; step < 100; step++) {
+                            if (freed.get()) {
+                                violations.incrementAndGet();
+                            }
+
+                            Thread.yield();
+                        }
+
+                        calls.incrementAndGet();
+                    } finally {
+                        guard.exit();
+                    }
+                }
+            });
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        started.await();
+        Thread.sleep(100);
+
+        assertTrue(guard.close());
+        freed.set(true);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, violations.get(), "Memory was used after being freed");
+        assertTrue(calls.get() > 0);
+    }
+
+    @Test
+    void closeOnlySucceedsOnce() {
+        CallGuard guard = new CallGuard();
+
+        assertTrue(guard.enter());
+        guard.exit();
+
+        assertFalse(guard.isClosed());
+        assertTrue(guard.close());
+        assertTrue(guard.isClosed());
+
+        assertFalse(guard.close());
+        assertFalse(guard.enter());
+    }
+}
@@ -0,0 +1,270 @@
+package net.lostluma.battery.impl.sysfs;
+
+import net.lostluma.battery.api.Battery;
+import net.lostluma.battery.api.BatterySnapshot;
+import net.lostluma.battery.api.RefreshResult;
+import net.lostluma.battery.api.State;
+import net.lostluma.battery.api.Technology;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SysfsManagerTest {
+    private static final double DELTA = 0.001;
+
+    @Test
+    void readsEnergyOrChargeTimesVoltage() throws Exception {
+        test(root -> {
+            Path energy = battery(root, "BAT0", "ENERGY");
+            write(energy, "energy_now", "25000000");
+            write(energy, "energy_full", "50000000");
+            write(energy, "energy_full_design", "55000000");
+            write(energy, "power_now", "-10000000");
+            write(energy, "voltage_now", "12000000");
+
+            // Charge in microampere-hours, and current instead of power
+            Path charge = battery(root, "BAT1", "CHARGE");
+            write(charge, "charge_now", "2000000");
+            write(charge, "charge_full", "4000000");
+            write(charge, "charge_full_design", "5000000");
+            write(charge, "current_now", "1500000");
+            write(charge, "voltage_now", "12000000");
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Map<String, Battery> batteries = byKey(manager.batteries());
+
+                BatterySnapshot first = batteries.get("ENERGY").snapshot();
+
+                assertEquals(25.0, first.energy(), DELTA);
+                assertEquals(50.0, first.energyFull(), DELTA);
+                assertEquals(55.0, first.energyFullDesign(), DELTA);
+                assertEquals(10.0, first.energyRate(), DELTA);
+                assertEquals(12.0, first.voltage(), DELTA);
+
+                BatterySnapshot second = batteries.get("CHARGE").snapshot();
+
+                assertEquals(24.0, second.energy(), DELTA);
+                assertEquals(48.0, second.energyFull(), DELTA);
+                assertEquals(60.0, second.energyFullDesign(), DELTA);
+                assertEquals(18.0, second.energyRate(), DELTA);
+                assertEquals(80.0, second.stateOfHealth(), DELTA);
+            }
+        });
+    }
+
+    @Test
+    void prefersReportedCapacity() throws Exception {
+        test(root -> {
+            Path directory = battery(root, "BAT0", "SERIAL");
+            write(directory, "energy_now", "25000000");
+            write(directory, "energy_full", "50000000");
+            write(directory, "capacity", "80");
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Battery battery = manager.batteries().iterator().next();
+                assertEquals(80.0, battery.snapshot().stateOfCharge(), DELTA);
+
+                // Without it, the state of charge is derived from energy
+                Files.delete(directory.resolve("capacity"));
+                battery.update();
+
+                assertEquals(50.0, battery.snapshot().stateOfCharge(), DELTA);
+            }
+        });
+    }
+
+    @Test
+    void mapsEveryState() throws Exception {
+        Map<String, State> states = new LinkedHashMap<>();
+
+        states.put("Charging", State.CHARGING);
+        states.put("Discharging", State.DISCHARGING);
+        states.put("Full", State.FULL);
+        states.put("Empty", State.EMPTY);
+        states.put("Not charging", State.UNKNOWN);
+        states.put("Unknown", State.UNKNOWN);
+
+        assertEquals(EnumSet.allOf(State.class), EnumSet.copyOf(states.values()));
+
+        test(root -> {
+            Path directory = battery(root, "BAT0", "SERIAL");
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Battery battery = manager.batteries().iterator().next();
+
+                for (Map.Entry<String, State> entry : states.entrySet()) {
+                    write(directory, "status", entry.getKey());
+                    battery.update();
+
+                    assertEquals(entry.getValue(), battery.snapshot().state(), entry.getKey());
+                }
+            }
+        });
+    }
+
+    @Test
+    void mapsEveryTechnology() throws Exception {
+        Map<String, Technology> technologies = new LinkedHashMap<>();
+
+        technologies.put("Unknown", Technology.UNKNOWN);
+        technologies.put("Li-ion", Technology.LITHIUM_ION);
+        technologies.put("Pb", Technology.LEAD_ACID);
+        technologies.put("Li-poly", Technology.LITHIUM_POLYMER);
+        technologies.put("NiMH", Technology.NICKEL_METAL_HYDRIDE);
+        technologies.put("NiCd", Technology.NICKEL_CADMIUM);
+        technologies.put("NiZn", Technology.NICKEL_ZINC);
+        technologies.put("LiFe", Technology.LITHIUM_IRON_PHOSPHATE);
+        technologies.put("RAM", Technology.RECHARGEABLE_ALKALINE_MANGANESE);
+
+        assertEquals(EnumSet.allOf(Technology.class), EnumSet.copyOf(technologies.values()));
+
+        test(root -> {
+            for (String technology : technologies.keySet()) {
+                write(battery(root, "BAT_" + technology, technology), "technology", technology);
+            }
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Map<String, Battery> batteries = byKey(manager.batteries());
+
+                for (Map.Entry<String, Technology> entry : technologies.entrySet()) {
+                    assertEquals(entry.getValue(), batteries.get(entry.getKey()).technology(), entry.getKey());
+                }
+            }
+        });
+    }
+
+    @Test
+    void duplicateSerialNumbersAreKeyedByDevice() throws Exception {
+        test(root -> {
+            Path first = battery(root, "BAT0", "SHARED");
+            battery(root, "BAT1", "SHARED");
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Map<String, Battery> batteries = byKey(manager.batteries());
+
+                assertEquals(setOf("SHARED/BAT0", "SHARED/BAT1"), batteries.keySet());
+                assertSame(batteries.get("SHARED/BAT1"), byKey(manager.batteries()).get("SHARED/BAT1"));
+
+                // The remaining battery gets the plain key, and never takes over the removed battery's instance
+                delete(first);
+                Map<String, Battery> remaining = byKey(manager.batteries());
+
+                assertEquals(setOf("SHARED"), remaining.keySet());
+                assertEquals("BAT1", ((SysfsBattery) remaining.get("SHARED")).directory.getFileName().toString());
+
+                assertFalse(batteries.get("SHARED/BAT0").isPresent());
+                assertFalse(batteries.get("SHARED/BAT1").isPresent());
+                assertNotSame(batteries.get("SHARED/BAT1"), remaining.get("SHARED"));
+            }
+        });
+    }
+
+    @Test
+    void batteryDisappearsBetweenEnumerations() throws Exception {
+        test(root -> {
+            battery(root, "BAT0", "FIRST");
+            Path second = battery(root, "BAT1", "SECOND");
+
+            try (SysfsManager manager = new SysfsManager(root)) {
+                Collection<Battery> batteries = manager.batteries();
+                Map<String, Battery> byKey = byKey(batteries);
+
+                delete(second);
+
+                // Updating fails right away, refreshing all batteries only fails the missing one
+                assertThrows(IOException.class, () -> byKey.get("SECOND").update());
+
+                RefreshResult result = manager.refreshAll(batteries);
+
+                assertEquals(1, result.succeeded());
+                assertEquals(Collections.singleton(byKey.get("SECOND")), result.failures().keySet());
+
+                // The next enumeration drops it, and marks it as removed
+                Map<String, Battery> remaining = byKey(manager.batteries());
+
+                assertEquals(setOf("FIRST"), remaining.keySet());
+                assertSame(byKey.get("FIRST"), remaining.get("FIRST"));
+
+                assertFalse(byKey.get("SECOND").isPresent());
+                assertTrue(byKey.get("FIRST").isPresent());
+            }
+        });
+    }
+
+    private static Map<String, Battery> byKey(Collection<Battery> batteries) {
+        Map<String, Battery> result = new LinkedHashMap<>();
+
+        for (Battery battery : batteries) {
+            result.put(((SysfsBattery) battery).key(), battery);
+        }
+
+        return result;
+    }
+
+    private static Set<String> setOf(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static Path battery(Path root, String name, String serialNumber) throws IOException {
+        Path directory = Files.createDirectory(root.resolve(name));
+
+        write(directory, "type", "Battery");
+        write(directory, "status", "Discharging");
+        write(directory, "serial_number", serialNumber);
+
+        return directory;
+    }
+
+    private static void test(Body body) throws Exception {
+        Path root = Files.createTempDirectory("power-supply");
+
+        try {
+            body.run(root);
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static void write(Path directory, String name, String value) throws IOException {
+        Files.write(directory.resolve(name), (value + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path root) throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try (java.util.stream.Stream<Path> stream = Files.walk(root)) {
+            stream.forEach(paths::add);
+        }
+
+        Collections.reverse(paths);
+
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void run(Path root) throws Exception;
+    }
+}
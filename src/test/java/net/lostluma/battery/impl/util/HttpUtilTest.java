@@ -0,0 +1,239 @@
+package net.lostluma.battery.impl.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpUtilTest {
+    private static final byte[] DATA = new byte[200 * 1024];
+    private static final String HASH;
+
+    static {
+        new Random(42).nextBytes(DATA);
+
+        HASH = CryptoUtil.toHex(CryptoUtil.sha512().digest(DATA));
+    }
+
+    @Test
+    void resumesPartialDownload() throws Exception {
+        test(Mode.RANGE, (server, into, partial) -> {
+            Files.write(partial, Arrays.copyOf(DATA, 1000));
+            HttpUtil.download(server.url, into, HASH);
+
+            assertEquals(Collections.singletonList("bytes=1000-"), server.ranges);
+            assertArrayEquals(DATA, Files.readAllBytes(into));
+            assertFalse(Files.exists(partial));
+        });
+    }
+
+    @Test
+    void restartsWhenRangeIsIgnored() throws Exception {
+        test(Mode.IGNORE_RANGE, (server, into, partial) -> {
+            Files.write(partial, Arrays.copyOf(DATA, 1000));
+            HttpUtil.download(server.url, into, HASH);
+
+            assertEquals(Collections.singletonList("bytes=1000-"), server.ranges);
+            assertArrayEquals(DATA, Files.readAllBytes(into));
+        });
+    }
+
+    @Test
+    void restartsWhenServerSendsAnotherRange() throws Exception {
+        test(Mode.WRONG_RANGE, (server, into, partial) -> {
+            Files.write(partial, Arrays.copyOf(DATA, 1000));
+            HttpUtil.download(server.url, into, HASH);
+
+            // The partial file is discarded, and the second request asks for the whole file
+            assertEquals(Arrays.asList("bytes=1000-", null), server.ranges);
+            assertArrayEquals(DATA, Files.readAllBytes(into));
+        });
+    }
+
+    @Test
+    void restartsWhenRangeIsNotSatisfiable() throws Exception {
+        test(Mode.RANGE, (server, into, partial) -> {
+            Files.write(partial, new byte[DATA.length + 10]);
+            HttpUtil.download(server.url, into, HASH);
+
+            assertEquals(Arrays.asList("bytes=" + (DATA.length + 10) + "-", null), server.ranges);
+            assertArrayEquals(DATA, Files.readAllBytes(into));
+        });
+    }
+
+    @Test
+    void keepsPartialFileOfTruncatedDownload() throws Exception {
+        test(Mode.RANGE, (server, into, partial) -> {
+            // The built-in server can't end a response early, so this one is written by hand
+            try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                Thread thread = new Thread(() -> truncate(socket));
+                thread.start();
+
+                URL url = new URL("http://127.0.0.1:" + socket.getLocalPort() + "/library");
+                assertThrows(IOException.class, () -> HttpUtil.download(url, into, HASH));
+
+                thread.join();
+            }
+
+            long size = Files.size(partial);
+
+            assertTrue(size > 0 && size < DATA.length);
+            assertFalse(Files.exists(into));
+
+            // The next attempt only requests the remainder
+            HttpUtil.download(server.url, into, HASH);
+
+            assertEquals(Collections.singletonList("bytes=" + size + "-"), server.ranges);
+            assertArrayEquals(DATA, Files.readAllBytes(into));
+        });
+    }
+
+    @Test
+    void deletesDownloadWithWrongHash() throws Exception {
+        test(Mode.RANGE, (server, into, partial) -> {
+            String hash = CryptoUtil.toHex(CryptoUtil.sha512().digest(new byte[0]));
+
+            assertThrows(IOException.class, () -> HttpUtil.download(server.url, into, hash));
+
+            assertNull(server.ranges.get(0));
+            assertFalse(Files.exists(partial));
+            assertFalse(Files.exists(into));
+        });
+    }
+
+    // Announces the whole file, but closes the connection halfway through
+    private static void truncate(ServerSocket server) {
+        try (Socket socket = server.accept()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            String line;
+
+            do {
+                line = reader.readLine();
+            } while (line != null && !line.isEmpty());
+
+            OutputStream output = socket.getOutputStream();
+
+            output.write(("HTTP/1.1 200 OK\r\nContent-Length: " + DATA.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.write(DATA, 0, DATA.length / 2);
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void test(Mode mode, Body body) throws Exception {
+        Path directory = Files.createTempDirectory("download");
+        Path into = directory.resolve("library");
+
+        Server server = new Server(mode);
+
+        try {
+            body.run(server, into, FileUtil.getPartialPath(into));
+        } finally {
+            server.close();
+
+            Files.deleteIfExists(FileUtil.getPartialPath(into));
+            Files.deleteIfExists(into);
+            Files.delete(directory);
+        }
+    }
+
+    private enum Mode {
+        RANGE,
+        IGNORE_RANGE,
+        WRONG_RANGE,
+    }
+
+    private static final class Server {
+        final HttpServer server;
+        final URL url;
+
+        // Range header of each request, or null if there was none
+        final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        final Mode mode;
+
+        Server(Mode mode) throws IOException {
+            this.mode = mode;
+
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            this.server.createContext("/library", this::handle);
+            this.server.start();
+
+            this.url = new URL("http://127.0.0.1:" + this.server.getAddress().getPort() + "/library");
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            this.ranges.add(range);
+
+            try (OutputStream body = exchange.getResponseBody()) {
+                long start = range == null ? 0 : Long.parseLong(range.substring("bytes=".length(), range.length() - 1));
+
+                switch (this.mode) {
+                    case RANGE:
+                        if (range == null) {
+                            exchange.sendResponseHeaders(200, DATA.length);
+                            body.write(DATA);
+                        } else if (start >= DATA.length) {
+                            exchange.sendResponseHeaders(416, -1);
+                        } else {
+                            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (DATA.length - 1) + "/" + DATA.length);
+                            exchange.sendResponseHeaders(206, DATA.length - start);
+                            body.write(DATA, (int) start, (int) (DATA.length - start));
+                        }
+
+                        break;
+                    case IGNORE_RANGE:
+                        exchange.sendResponseHeaders(200, DATA.length);
+                        body.write(DATA);
+                        break;
+                    case WRONG_RANGE:
+                        if (range == null) {
+                            exchange.sendResponseHeaders(200, DATA.length);
+                        } else {
+                            exchange.getResponseHeaders().set("Content-Range", "bytes 0-" + (DATA.length - 1) + "/" + DATA.length);
+                            exchange.sendResponseHeaders(206, DATA.length);
+                        }
+
+                        body.write(DATA);
+                        break;
+                }
+            }
+        }
+
+        void close() {
+            this.server.stop(0);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void run(Server server, Path into, Path partial) throws Exception;
+    }
+}